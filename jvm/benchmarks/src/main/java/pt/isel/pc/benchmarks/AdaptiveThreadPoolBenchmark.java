@@ -0,0 +1,126 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.isel.pc.demos.li51n.synchronizers.SimpleThreadPool;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the throughput of a {@link SimpleThreadPool}, with {@value #IN_FLIGHT} runnables always submitted and
+ * not completed, so that there is always queued work, on a workload that changes phase every
+ * {@value #PHASE_MS} ms, between CPU-bound runnables, where the best number of workers is the number of cores,
+ * and blocking runnables (sleeping 1 ms), where the more workers the better, up to {@value #MAX_WORKERS}.
+ * <ul>
+ *     <li>{@code FIXED_CORES}: up to one worker per core.</li>
+ *     <li>{@code FIXED_MAX}: up to {@value #MAX_WORKERS} workers.</li>
+ *     <li>{@code ADAPTIVE}: between one and {@value #MAX_WORKERS} workers, adapted by hill-climbing every
+ *     {@value #SAMPLE_MS} ms.</li>
+ * </ul>
+ * At the end of each iteration it prints the average worker limit on each phase, which shows whether the
+ * adaptive pool tracks the best number of workers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdaptiveThreadPoolBenchmark {
+
+    private static final int IN_FLIGHT = 64;
+    private static final int MAX_WORKERS = 16;
+    private static final long PHASE_MS = 1000;
+    private static final long SAMPLE_MS = 20;
+    private static final long CPU_TOKENS = 10_000;
+
+    public enum Implementation {
+        FIXED_CORES, FIXED_MAX, ADAPTIVE
+    }
+
+    @Param
+    public Implementation implementation;
+
+    private SimpleThreadPool pool;
+    private long startNanos;
+    private final Semaphore inFlight = new Semaphore(IN_FLIGHT);
+    private final LongAdder[] limitSums = {new LongAdder(), new LongAdder()};
+    private final LongAdder[] limitCounts = {new LongAdder(), new LongAdder()};
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        switch (implementation) {
+            case FIXED_CORES:
+                pool = new SimpleThreadPool(cores, cores, 1, TimeUnit.SECONDS);
+                break;
+            case FIXED_MAX:
+                pool = new SimpleThreadPool(MAX_WORKERS, MAX_WORKERS, 1, TimeUnit.SECONDS);
+                break;
+            default:
+                pool = new SimpleThreadPool(0, MAX_WORKERS, 1, TimeUnit.SECONDS,
+                        Integer.MAX_VALUE, SimpleThreadPool.RejectionPolicy.REJECT, Duration.ofMillis(SAMPLE_MS));
+        }
+        startNanos = System.nanoTime();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        inFlight.acquire(IN_FLIGHT);
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printLimits() {
+        System.out.printf("  average worker limit: cpu %.1f, blocking %.1f%n", average(0), average(1));
+        for (int phase = 0; phase < 2; ++phase) {
+            limitSums[phase].reset();
+            limitCounts[phase].reset();
+        }
+    }
+
+    // each operation submits one runnable, after waiting for one of the in flight to complete
+    @Benchmark
+    public void phases() throws InterruptedException {
+        int phase = (int) ((System.nanoTime() - startNanos) / TimeUnit.MILLISECONDS.toNanos(PHASE_MS) % 2);
+        inFlight.acquire();
+        pool.execute(phase == 0 ? cpuBound : blocking);
+        limitSums[phase].add(pool.getWorkerLimit());
+        limitCounts[phase].increment();
+    }
+
+    private final Runnable cpuBound = () -> {
+        Blackhole.consumeCPU(CPU_TOKENS);
+        inFlight.release();
+    };
+
+    private final Runnable blocking = () -> {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        inFlight.release();
+    };
+
+    private double average(int phase) {
+        long count = limitCounts[phase].sum();
+        return count == 0 ? 0 : (double) limitSums[phase].sum() / count;
+    }
+}
@@ -0,0 +1,123 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.demos.li51n.synchronizers.BlockingQueue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of a producer and a consumer exchanging elements through a {@link BlockingQueue},
+ * in elements per microsecond.
+ * <ul>
+ *     <li>{@code single}: one element per operation, with {@code enqueue} and {@code dequeue}.</li>
+ *     <li>{@code batch}: {@value #BATCH} elements per operation, with {@code enqueueAll} and
+ *     {@code dequeueBatch}.</li>
+ *     <li>{@code reference}: one element per operation on a {@link ArrayBlockingQueue} with the same capacity,
+ *     or a {@link SynchronousQueue} for capacity 0.</li>
+ * </ul>
+ * With capacity 0 every element needs a context switch, while with a buffer the threads only block when
+ * it is full or empty.
+ * The timeouts only ensure the threads don't stay blocked when the iteration ends.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockingQueueBenchmark {
+
+    private static final long TIMEOUT_MS = 10;
+    private static final int BATCH = 32;
+
+    private static final Integer element = 42;
+    private static final List<Integer> elements = Collections.nCopies(BATCH, element);
+
+    @State(Scope.Group)
+    public static class Queues {
+
+        @Param({"0", "16", "1024"})
+        public int capacity;
+
+        BlockingQueue<Integer> queue;
+        java.util.concurrent.BlockingQueue<Integer> referenceQueue;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            queue = new BlockingQueue<>(capacity);
+            referenceQueue = capacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    @Benchmark
+    @Group("single")
+    @GroupThreads(1)
+    public boolean singleProducer(Queues queues) throws InterruptedException {
+        return queues.queue.enqueue(element, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("single")
+    @GroupThreads(1)
+    public Optional<Integer> singleConsumer(Queues queues) throws InterruptedException {
+        return queues.queue.dequeue(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("batch")
+    @GroupThreads(1)
+    @OperationsPerInvocation(BATCH)
+    public int batchProducer(Queues queues) throws InterruptedException {
+        return queues.queue.enqueueAll(elements, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("batch")
+    @GroupThreads(1)
+    @OperationsPerInvocation(BATCH)
+    public List<Integer> batchConsumer(Queues queues) throws InterruptedException {
+        // dequeueBatch returns the available elements, so it may need more than one call for a full batch
+        List<Integer> received = new ArrayList<>(BATCH);
+        while (received.size() < BATCH) {
+            List<Integer> batch = queues.queue.dequeueBatch(BATCH - received.size(), TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            if (batch.isEmpty()) {
+                break;
+            }
+            received.addAll(batch);
+        }
+        return received;
+    }
+
+    @Benchmark
+    @Group("reference")
+    @GroupThreads(1)
+    public boolean referenceProducer(Queues queues) throws InterruptedException {
+        return queues.referenceQueue.offer(element, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("reference")
+    @GroupThreads(1)
+    public Integer referenceConsumer(Queues queues) throws InterruptedException {
+        return queues.referenceQueue.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+}
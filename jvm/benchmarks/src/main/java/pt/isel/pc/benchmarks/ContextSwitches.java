@@ -0,0 +1,48 @@
+package pt.isel.pc.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Reads the number of context switches of the current thread, as reported by Linux on
+ * {@code /proc/thread-self/status}. A voluntary context switch happens when the thread blocks
+ * (e.g. on {@link Object#wait}, {@link java.util.concurrent.locks.LockSupport#park}), so it is a good
+ * approximation of the number of times the thread was woken up.
+ * On other operating systems the counters are always zero.
+ */
+public final class ContextSwitches {
+
+    private static final Path STATUS = Paths.get("/proc/thread-self/status");
+    private static final String VOLUNTARY = "voluntary_ctxt_switches:";
+    private static final String NON_VOLUNTARY = "nonvoluntary_ctxt_switches:";
+
+    private ContextSwitches() {
+        // static class
+    }
+
+    public static long voluntary() {
+        return read(VOLUNTARY);
+    }
+
+    public static long nonVoluntary() {
+        return read(NON_VOLUNTARY);
+    }
+
+    private static long read(String key) {
+        if (!Files.isReadable(STATUS)) {
+            return 0;
+        }
+        try {
+            for (String line : Files.readAllLines(STATUS)) {
+                if (line.startsWith(key)) {
+                    return Long.parseLong(line.substring(key.length()).trim());
+                }
+            }
+            return 0;
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.utils.Deadline;
+import pt.isel.pc.utils.Timeouts;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of computing the remaining time of a timed wait, which is done on every wake-up,
+ * using the wall-clock {@link Timeouts}, the monotonic {@link Deadline} and the {@link Deadline} backed by
+ * the cached clock.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeadlineBenchmark {
+
+    @SuppressWarnings("deprecation")
+    private final long wallClockDeadline = Timeouts.start(1, TimeUnit.HOURS);
+    private final Deadline deadline = Deadline.after(1, TimeUnit.HOURS);
+    private final Deadline cachedClockDeadline = Deadline.afterUsingCachedClock(1, TimeUnit.HOURS);
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public long wallClock() {
+        return Timeouts.remaining(wallClockDeadline);
+    }
+
+    @Benchmark
+    public long nanoTime() {
+        return deadline.remainingNanos();
+    }
+
+    @Benchmark
+    public long cachedClock() {
+        return cachedClockDeadline.remainingNanos();
+    }
+}
@@ -0,0 +1,119 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.demos.li51n.synchronizers.LockFreeQueue;
+import pt.isel.pc.demos.li51n.synchronizers.LockFreeRingBuffer;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures the throughput of the non-blocking queues, where each operation enqueues an element and
+ * dequeues another one, so the queue size stays constant.
+ * <ul>
+ *     <li>{@code LOCK_FREE_QUEUE} and {@code LOCK_FREE_QUEUE_WITH_BACKOFF}: {@link LockFreeQueue}, without and
+ *     with exponential backoff after a failed CAS.</li>
+ *     <li>{@code RING_BUFFER}: the bounded {@link LockFreeRingBuffer}.</li>
+ *     <li>{@code CONCURRENT_LINKED_QUEUE}: {@link ConcurrentLinkedQueue}, also based on the Michael-Scott queue.</li>
+ * </ul>
+ * Use {@link ScalingRunner} to see how it scales with the number of threads, where the backoff should only
+ * make a difference with more threads than cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LockFreeQueueBenchmark {
+
+    private static final int INITIAL_SIZE = 1024;
+    private static final int RING_BUFFER_CAPACITY = 1 << 16;
+
+    // the operations used by the benchmark, over each queue implementation
+    interface Queue {
+        void enqueue(Integer value);
+
+        Integer dequeue();
+    }
+
+    public enum Implementation {
+        LOCK_FREE_QUEUE(() -> fromLockFreeQueue(new LockFreeQueue<>())),
+        LOCK_FREE_QUEUE_WITH_BACKOFF(() -> fromLockFreeQueue(new LockFreeQueue<>(true))),
+        RING_BUFFER(() -> {
+            LockFreeRingBuffer<Integer> ringBuffer = new LockFreeRingBuffer<>(RING_BUFFER_CAPACITY);
+            return new Queue() {
+                public void enqueue(Integer value) {
+                    ringBuffer.offer(value);
+                }
+
+                public Integer dequeue() {
+                    return ringBuffer.poll();
+                }
+            };
+        }),
+        CONCURRENT_LINKED_QUEUE(() -> {
+            ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<>();
+            return new Queue() {
+                public void enqueue(Integer value) {
+                    queue.offer(value);
+                }
+
+                public Integer dequeue() {
+                    return queue.poll();
+                }
+            };
+        });
+
+        private final Supplier<Queue> factory;
+
+        Implementation(Supplier<Queue> factory) {
+            this.factory = factory;
+        }
+    }
+
+    private static Queue fromLockFreeQueue(LockFreeQueue<Integer> queue) {
+        return new Queue() {
+            public void enqueue(Integer value) {
+                queue.enqueue(value);
+            }
+
+            public Integer dequeue() {
+                return queue.dequeue().orElse(null);
+            }
+        };
+    }
+
+    private static final Integer element = 42;
+
+    @Param
+    public Implementation implementation;
+
+    private Queue queue;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        queue = implementation.factory.get();
+        for (int i = 0; i < INITIAL_SIZE; ++i) {
+            queue.enqueue(element);
+        }
+    }
+
+    @Benchmark
+    public Integer enqueueAndDequeue() {
+        queue.enqueue(element);
+        return queue.dequeue();
+    }
+}
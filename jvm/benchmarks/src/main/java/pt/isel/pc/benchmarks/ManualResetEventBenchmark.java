@@ -0,0 +1,48 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.demos.li51n.synchronizers.ManualResetEvent2;
+import pt.isel.pc.examples.synchronizers.LockFreeManualResetEvent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code waitSet} on an event that is already set, e.g. a "system ready" gate checked on every request.
+ * Use {@link ScalingRunner} to see how it scales with the number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ManualResetEventBenchmark {
+
+    private final ManualResetEvent2 lockBasedEvent = new ManualResetEvent2();
+    private final LockFreeManualResetEvent lockFreeEvent = new LockFreeManualResetEvent();
+
+    @Setup
+    public void setup() {
+        lockBasedEvent.set();
+        lockFreeEvent.set();
+    }
+
+    @Benchmark
+    public boolean lockBased() throws InterruptedException {
+        return lockBasedEvent.waitSet(0);
+    }
+
+    @Benchmark
+    public boolean lockFree() throws InterruptedException {
+        return lockFreeEvent.waitSet(0, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,157 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.isel.pc.examples.synchronizers.NArySemaphore;
+import pt.isel.pc.examples.synchronizers.NArySemaphoreUsingKernelStyle;
+import pt.isel.pc.examples.synchronizers.NArySemaphoreWithFifoOrder;
+import pt.isel.pc.examples.synchronizers.NArySemaphoreWithLockFreeFastPath;
+import pt.isel.pc.examples.synchronizers.NArySemaphoreWithSpecificNotification;
+import pt.isel.pc.examples.synchronizers.SimpleNArySemaphoreV0;
+import pt.isel.pc.examples.synchronizers.StripedNArySemaphore;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Compares the {@link NArySemaphore} implementations under contention.
+ * Each benchmark operation acquires a number of units, holds them during {@code holdTokens}
+ * (see {@link Blackhole#consumeCPU}) and releases them.
+ * <ul>
+ *     <li>{@link #throughput} reports the operations per time unit and, via {@link PathCounters},
+ *     how many acquisitions were served by the fast path (i.e. without waiting) and how many needed to wait.</li>
+ *     <li>{@link #latency} reports the operation latency distribution (p50, p99, p99.9, ...).
+ *     With {@code holdTokens = 0} this is dominated by the acquisition latency.</li>
+ * </ul>
+ * Use {@link ScalingRunner} to run it with 1 up to 2 x number of cores threads.
+ * The scalability curve of {@link StripedNArySemaphore} is only visible when the units are abundant, e.g.
+ * {@code gradle jmhScaling -PjmhArgs="NArySemaphoreBenchmark.throughput -p implementation=LOCK_FREE_FAST_PATH,STRIPED
+ * -p initialUnits=1024 -p distribution=UNIFORM_1 -p holdTokens=0"}.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NArySemaphoreBenchmark {
+
+    public enum Implementation {
+        SIMPLE_V0(SimpleNArySemaphoreV0::new),
+        FIFO_ORDER(NArySemaphoreWithFifoOrder::new),
+        SPECIFIC_NOTIFICATION(NArySemaphoreWithSpecificNotification::new),
+        KERNEL_STYLE(NArySemaphoreUsingKernelStyle::new),
+        LOCK_FREE_FAST_PATH(NArySemaphoreWithLockFreeFastPath::new),
+        STRIPED(StripedNArySemaphore::new);
+
+        private final IntFunction<NArySemaphore> factory;
+
+        Implementation(IntFunction<NArySemaphore> factory) {
+            this.factory = factory;
+        }
+
+        public NArySemaphore create(int initialUnits) {
+            return factory.apply(initialUnits);
+        }
+    }
+
+    public enum UnitsDistribution {
+        // always one unit
+        UNIFORM_1 {
+            @Override
+            int next(ThreadLocalRandom random, int maxUnits) {
+                return 1;
+            }
+        },
+        // uniformly distributed between 1 and maxUnits
+        MIXED {
+            @Override
+            int next(ThreadLocalRandom random, int maxUnits) {
+                return random.nextInt(maxUnits) + 1;
+            }
+        },
+        // Pareto distributed: mostly small requests with a few very large ones
+        HEAVY_TAILED {
+            @Override
+            int next(ThreadLocalRandom random, int maxUnits) {
+                double units = Math.pow(1 - random.nextDouble(), -1 / PARETO_SHAPE);
+                return (int) Math.min(maxUnits, Math.ceil(units));
+            }
+        };
+
+        private static final double PARETO_SHAPE = 1.2;
+
+        abstract int next(ThreadLocalRandom random, int maxUnits);
+    }
+
+    /**
+     * Per-thread counters for the acquisitions served by the fast path and by the wait path.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PathCounters {
+        public long fastPath;
+        public long waitPath;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            fastPath = 0;
+            waitPath = 0;
+        }
+    }
+
+    @Param({"SIMPLE_V0", "FIFO_ORDER", "SPECIFIC_NOTIFICATION", "KERNEL_STYLE", "LOCK_FREE_FAST_PATH", "STRIPED"})
+    public Implementation implementation;
+
+    @Param({"UNIFORM_1", "MIXED", "HEAVY_TAILED"})
+    public UnitsDistribution distribution;
+
+    @Param({"4", "32"})
+    public int initialUnits;
+
+    @Param({"0", "500"})
+    public int holdTokens;
+
+    private NArySemaphore semaphore;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        semaphore = implementation.create(initialUnits);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public void throughput(PathCounters counters) throws InterruptedException {
+        int units = distribution.next(ThreadLocalRandom.current(), initialUnits);
+        // A zero timeout acquire only succeeds on the fast path, so it is used to classify the acquisition.
+        if (semaphore.acquire(units, 0, TimeUnit.MILLISECONDS)) {
+            counters.fastPath += 1;
+        } else {
+            semaphore.acquire(units, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            counters.waitPath += 1;
+        }
+        Blackhole.consumeCPU(holdTokens);
+        semaphore.release(units);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public void latency() throws InterruptedException {
+        int units = distribution.next(ThreadLocalRandom.current(), initialUnits);
+        semaphore.acquire(units, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        Blackhole.consumeCPU(holdTokens);
+        semaphore.release(units);
+    }
+}
@@ -0,0 +1,119 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.demos.li51n.synchronizers.PackedRange;
+import pt.isel.pc.demos.li51n.synchronizers.Range;
+import pt.isel.pc.demos.li51n.synchronizers.SeqLockRange;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the range implementations for a mix of reads ({@code contains}) and writes ({@code setMin} and
+ * {@code setMax}), with {@code writePercent} of writes.
+ * <ul>
+ *     <li>{@code CAS}: {@link Range}, where a write allocates a new snapshot and replaces it with a CAS,
+ *     using {@link pt.isel.pc.utils.AtomicState}.</li>
+ *     <li>{@code PACKED}: {@link PackedRange}, with both values on a long, using
+ *     {@link pt.isel.pc.utils.AtomicIntPair}, so the writes don't allocate.</li>
+ *     <li>{@code SEQLOCK}: {@link SeqLockRange}, where the writes don't allocate and the reads don't write
+ *     to shared memory, but retry while there is a write in progress.</li>
+ * </ul>
+ * Use {@link ScalingRunner} to see how it scales with the number of threads, and the GC profiler,
+ * {@code -prof gc}, to see the allocation per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RangeBenchmark {
+
+    // min is always below and max always above this value, so any write keeps the invariant
+    private static final int MIDDLE = 1000;
+
+    public enum Implementation {
+        CAS, PACKED, SEQLOCK
+    }
+
+    @Param
+    public Implementation implementation;
+
+    @Param({"1", "10", "50"})
+    public int writePercent;
+
+    private Range range;
+    private PackedRange packedRange;
+    private SeqLockRange seqLockRange;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        range = new Range(0, 2 * MIDDLE);
+        packedRange = new PackedRange(0, 2 * MIDDLE);
+        seqLockRange = new SeqLockRange(0, 2 * MIDDLE);
+    }
+
+    @Benchmark
+    public boolean readOrWrite() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int value = random.nextInt(MIDDLE);
+        if (random.nextInt(100) < writePercent) {
+            if ((value & 1) == 0) {
+                setMin(value);
+            } else {
+                setMax(MIDDLE + value);
+            }
+            return true;
+        }
+        return contains(2 * value);
+    }
+
+    private void setMin(int min) {
+        switch (implementation) {
+            case CAS:
+                range.setMin(min);
+                break;
+            case PACKED:
+                packedRange.setMin(min);
+                break;
+            default:
+                seqLockRange.setMin(min);
+        }
+    }
+
+    private void setMax(int max) {
+        switch (implementation) {
+            case CAS:
+                range.setMax(max);
+                break;
+            case PACKED:
+                packedRange.setMax(max);
+                break;
+            default:
+                seqLockRange.setMax(max);
+        }
+    }
+
+    private boolean contains(int value) {
+        switch (implementation) {
+            case CAS:
+                return range.contains(value);
+            case PACKED:
+                return packedRange.contains(value);
+            default:
+                return seqLockRange.contains(value);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.demos.li51n.synchronizers.BlockingQueue;
+import pt.isel.pc.demos.li51n.synchronizers.BlockingRingBuffer;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of producers and consumers exchanging elements through bounded queues with the
+ * same capacity. The group's score counts both the enqueues and the dequeues, so the number of elements
+ * per microsecond is the producers' score.
+ * <ul>
+ *     <li>{@code ringBuffer}: {@link BlockingRingBuffer}, which only uses a lock when it is empty or full.</li>
+ *     <li>{@code blockingQueue}: the monitor-based {@link BlockingQueue}.</li>
+ *     <li>{@code arrayBlockingQueue}: {@link ArrayBlockingQueue}, with a single lock.</li>
+ * </ul>
+ * Each group has one producer and one consumer by default, which can be changed with {@code -tg}, e.g.
+ * {@code -tg 4,4} for four producers and four consumers.
+ * The timeouts only ensure the threads don't stay blocked when the iteration ends.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RingBufferBenchmark {
+
+    private static final long TIMEOUT_MS = 10;
+
+    private static final Integer element = 42;
+
+    @State(Scope.Group)
+    public static class Queues {
+
+        @Param({"16", "1024"})
+        public int capacity;
+
+        BlockingRingBuffer<Integer> ringBuffer;
+        BlockingQueue<Integer> blockingQueue;
+        ArrayBlockingQueue<Integer> arrayBlockingQueue;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            ringBuffer = new BlockingRingBuffer<>(capacity);
+            blockingQueue = new BlockingQueue<>(capacity);
+            arrayBlockingQueue = new ArrayBlockingQueue<>(capacity);
+        }
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(1)
+    public boolean ringBufferProducer(Queues queues) throws InterruptedException {
+        return queues.ringBuffer.enqueue(element, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(1)
+    public Optional<Integer> ringBufferConsumer(Queues queues) throws InterruptedException {
+        return queues.ringBuffer.dequeue(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    @GroupThreads(1)
+    public boolean blockingQueueProducer(Queues queues) throws InterruptedException {
+        return queues.blockingQueue.enqueue(element, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("blockingQueue")
+    @GroupThreads(1)
+    public Optional<Integer> blockingQueueConsumer(Queues queues) throws InterruptedException {
+        return queues.blockingQueue.dequeue(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("arrayBlockingQueue")
+    @GroupThreads(1)
+    public boolean arrayBlockingQueueProducer(Queues queues) throws InterruptedException {
+        return queues.arrayBlockingQueue.offer(element, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("arrayBlockingQueue")
+    @GroupThreads(1)
+    public Integer arrayBlockingQueueConsumer(Queues queues) throws InterruptedException {
+        return queues.arrayBlockingQueue.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+}
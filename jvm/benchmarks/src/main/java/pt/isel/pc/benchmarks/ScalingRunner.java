@@ -0,0 +1,61 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the selected benchmarks once for each thread count in 1, 2, 4, ..., 2 x number of cores,
+ * and prints a summary with the primary score of each run, i.e., a scalability curve.
+ * Accepts the same command line arguments as {@link org.openjdk.jmh.Main}, except for the thread count.
+ */
+public class ScalingRunner {
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        List<String> summary = new ArrayList<>();
+        for (int threads : threadCounts()) {
+            Options options = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .threads(threads)
+                    .build();
+            for (RunResult result : new Runner(options).run()) {
+                summary.add(String.format("%3d  %-70s %-6s %s  %14.3f %s",
+                        threads,
+                        result.getParams().getBenchmark(),
+                        result.getParams().getMode().shortLabel(),
+                        paramsToString(result),
+                        result.getPrimaryResult().getScore(),
+                        result.getPrimaryResult().getScoreUnit()));
+            }
+        }
+        System.out.println();
+        System.out.println("Scalability summary (threads, benchmark, mode, params, score)");
+        summary.forEach(System.out::println);
+    }
+
+    public static List<Integer> threadCounts() {
+        int max = 2 * Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < max; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(max);
+        return counts;
+    }
+
+    private static String paramsToString(RunResult result) {
+        StringBuilder sb = new StringBuilder();
+        for (String key : result.getParams().getParamsKeys()) {
+            sb.append(key).append('=').append(result.getParams().getParam(key)).append(' ');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.demos.li51n.synchronizers.EliminationBackoffStack;
+import pt.isel.pc.demos.li51n.synchronizers.LockFreeStack;
+import pt.isel.pc.demos.li51n.synchronizers.PooledLockFreeStack;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures the throughput of the lock-free stacks under a symmetric load, where each operation pushes an
+ * element and pops another one.
+ * <ul>
+ *     <li>{@code TREIBER}: {@link LockFreeStack}, where every push and pop retries the CAS on head.</li>
+ *     <li>{@code ELIMINATION}: {@link EliminationBackoffStack}, where colliding push and pop pairs exchange
+ *     the value without changing head.</li>
+ *     <li>{@code POOLED}: {@link PooledLockFreeStack}, which reuses the nodes and doesn't return an
+ *     {@link java.util.Optional}, so it doesn't allocate. Use the GC profiler, {@code -prof gc}, to see the
+ *     bytes allocated per operation on {@code gc.alloc.rate.norm}.</li>
+ * </ul>
+ * Use {@link ScalingRunner} to see how it scales from 1 to 2 x number of cores threads, e.g.
+ * {@code gradle jmhScaling -PjmhArgs="StackBenchmark"}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StackBenchmark {
+
+    // the operations used by the benchmark, over each stack implementation
+    interface Stack {
+        void push(Integer value);
+
+        // returns null if empty
+        Integer pop();
+    }
+
+    public enum Implementation {
+        TREIBER(() -> {
+            LockFreeStack<Integer> stack = new LockFreeStack<>();
+            return new Stack() {
+                public void push(Integer value) {
+                    stack.push(value);
+                }
+
+                public Integer pop() {
+                    return stack.pop().orElse(null);
+                }
+            };
+        }),
+        ELIMINATION(() -> {
+            EliminationBackoffStack<Integer> stack = new EliminationBackoffStack<>();
+            return new Stack() {
+                public void push(Integer value) {
+                    stack.push(value);
+                }
+
+                public Integer pop() {
+                    return stack.pop().orElse(null);
+                }
+            };
+        }),
+        POOLED(() -> {
+            PooledLockFreeStack<Integer> stack = new PooledLockFreeStack<>();
+            return new Stack() {
+                public void push(Integer value) {
+                    stack.push(value);
+                }
+
+                public Integer pop() {
+                    return stack.pop();
+                }
+            };
+        });
+
+        private final Supplier<Stack> factory;
+
+        Implementation(Supplier<Stack> factory) {
+            this.factory = factory;
+        }
+    }
+
+    private static final Integer element = 42;
+
+    @Param
+    public Implementation implementation;
+
+    private Stack stack;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        stack = implementation.factory.get();
+    }
+
+    @Benchmark
+    public Integer pushAndPop() {
+        stack.push(element);
+        return stack.pop();
+    }
+}
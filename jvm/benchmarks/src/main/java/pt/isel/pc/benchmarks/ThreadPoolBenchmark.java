@@ -0,0 +1,77 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.demos.li51n.synchronizers.SimpleThreadPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of short runnables submitted in bursts to a {@link SimpleThreadPool}, as the average
+ * time from the start of the burst until all of its runnables completed, per runnable.
+ * Between bursts the pool is idle for {@code gapMicros}, which isn't measured.
+ * <ul>
+ *     <li>{@code keepAliveMs = 0}: the workers end as soon as there is no work, so every burst creates
+ *     and starts new threads.</li>
+ *     <li>{@code keepAliveMs = 1000}: the workers stay idle between bursts, and the runnables are given
+ *     directly to them.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ThreadPoolBenchmark {
+
+    private static final int BURST = 16;
+    private static final int MAX_WORKERS = 4;
+
+    @Param({"0", "1000"})
+    public long keepAliveMs;
+
+    @Param({"1000"})
+    public long gapMicros;
+
+    private SimpleThreadPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = new SimpleThreadPool(0, MAX_WORKERS, keepAliveMs, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Setup(Level.Invocation)
+    public void gap() throws InterruptedException {
+        TimeUnit.MICROSECONDS.sleep(gapMicros);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BURST);
+        for (int i = 0; i < BURST; ++i) {
+            pool.execute(done::countDown);
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,106 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.utils.TimerWheel;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link TimerWheel} with {@link ScheduledThreadPoolExecutor} when there is a large number of
+ * pending timers and most of them are cancelled, as with the timeouts of asynchronous operations.
+ * Each trial starts with {@code pendingTimers} long timers already scheduled, and each operation schedules a
+ * timer with a delay between 1 and 10 seconds, which is then cancelled with probability
+ * {@code cancellationRate}. The timers that aren't cancelled expire during the measurement.
+ * {@link ScheduledThreadPoolExecutor} is measured with and without {@code removeOnCancelPolicy}, since by
+ * default the cancelled tasks stay in the queue until their delay elapses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class TimerBenchmark {
+
+    public enum Implementation {
+        TIMER_WHEEL,
+        SCHEDULED_THREAD_POOL,
+        SCHEDULED_THREAD_POOL_REMOVE_ON_CANCEL
+    }
+
+    private static final Runnable noop = () -> {
+    };
+
+    @Param({"TIMER_WHEEL", "SCHEDULED_THREAD_POOL", "SCHEDULED_THREAD_POOL_REMOVE_ON_CANCEL"})
+    public Implementation implementation;
+
+    @Param({"100000", "1000000"})
+    public int pendingTimers;
+
+    @Param({"0.9", "0.99"})
+    public double cancellationRate;
+
+    private TimerWheel timerWheel;
+    private ScheduledThreadPoolExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if (implementation == Implementation.TIMER_WHEEL) {
+            timerWheel = new TimerWheel();
+        } else {
+            executor = new ScheduledThreadPoolExecutor(1);
+            executor.setRemoveOnCancelPolicy(implementation == Implementation.SCHEDULED_THREAD_POOL_REMOVE_ON_CANCEL);
+        }
+        for (int i = 0; i < pendingTimers; ++i) {
+            schedule(1, TimeUnit.HOURS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (timerWheel != null) {
+            timerWheel.close();
+        } else {
+            executor.shutdownNow();
+        }
+    }
+
+    private Object schedule(long delay, TimeUnit timeUnit) {
+        return timerWheel != null
+                ? timerWheel.schedule(noop, delay, timeUnit)
+                : executor.schedule(noop, delay, timeUnit);
+    }
+
+    private static void cancel(Object timer) {
+        if (timer instanceof TimerWheel.Timeout) {
+            ((TimerWheel.Timeout) timer).cancel();
+        } else {
+            ((ScheduledFuture<?>) timer).cancel(false);
+        }
+    }
+
+    @Benchmark
+    public Object scheduleAndCancel() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Object timer = schedule(random.nextLong(1_000, 10_000), TimeUnit.MILLISECONDS);
+        if (random.nextDouble() < cancellationRate) {
+            cancel(timer);
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,149 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.demos.li51n.synchronizers.BlockingQueue;
+import pt.isel.pc.demos.li51n.synchronizers.TwoLockBlockingQueue;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares the single lock {@link BlockingQueue} with the {@link TwoLockBlockingQueue}, where producers and
+ * consumers use different locks, with the same capacity.
+ * <ul>
+ *     <li>{@code p1c1}: one producer and one consumer.</li>
+ *     <li>{@code p4c1}: four producers and one consumer, so the queue is mostly full.</li>
+ *     <li>{@code p4c4}: four producers and four consumers.</li>
+ * </ul>
+ * The group's score counts both the enqueues and the dequeues, so the number of elements per microsecond
+ * is the producers' score.
+ * The two locks only help when there is a producer and a consumer running at the same time, so the
+ * difference needs a host with at least as many cores as threads.
+ * The timeouts only ensure the threads don't stay blocked when the iteration ends.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TwoLockQueueBenchmark {
+
+    private static final long TIMEOUT_MS = 10;
+
+    private static final Integer element = 42;
+
+    interface Queue {
+        boolean enqueue(Integer element) throws InterruptedException;
+
+        Optional<Integer> dequeue() throws InterruptedException;
+    }
+
+    public enum Implementation {
+        SINGLE_LOCK(() -> {
+            BlockingQueue<Integer> queue = new BlockingQueue<>(Queues.CAPACITY);
+            return new Queue() {
+                @Override
+                public boolean enqueue(Integer element) throws InterruptedException {
+                    return queue.enqueue(element, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                }
+
+                @Override
+                public Optional<Integer> dequeue() throws InterruptedException {
+                    return queue.dequeue(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                }
+            };
+        }),
+        TWO_LOCK(() -> {
+            TwoLockBlockingQueue<Integer> queue = new TwoLockBlockingQueue<>(Queues.CAPACITY);
+            return new Queue() {
+                @Override
+                public boolean enqueue(Integer element) throws InterruptedException {
+                    return queue.enqueue(element, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                }
+
+                @Override
+                public Optional<Integer> dequeue() throws InterruptedException {
+                    return queue.dequeue(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                }
+            };
+        });
+
+        private final Supplier<Queue> factory;
+
+        Implementation(Supplier<Queue> factory) {
+            this.factory = factory;
+        }
+    }
+
+    @State(Scope.Group)
+    public static class Queues {
+
+        static final int CAPACITY = 1024;
+
+        @Param
+        public Implementation implementation;
+
+        Queue queue;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            queue = implementation.factory.get();
+        }
+    }
+
+    @Benchmark
+    @Group("p1c1")
+    @GroupThreads(1)
+    public boolean p1c1Producer(Queues queues) throws InterruptedException {
+        return queues.queue.enqueue(element);
+    }
+
+    @Benchmark
+    @Group("p1c1")
+    @GroupThreads(1)
+    public Optional<Integer> p1c1Consumer(Queues queues) throws InterruptedException {
+        return queues.queue.dequeue();
+    }
+
+    @Benchmark
+    @Group("p4c1")
+    @GroupThreads(4)
+    public boolean p4c1Producer(Queues queues) throws InterruptedException {
+        return queues.queue.enqueue(element);
+    }
+
+    @Benchmark
+    @Group("p4c1")
+    @GroupThreads(1)
+    public Optional<Integer> p4c1Consumer(Queues queues) throws InterruptedException {
+        return queues.queue.dequeue();
+    }
+
+    @Benchmark
+    @Group("p4c4")
+    @GroupThreads(4)
+    public boolean p4c4Producer(Queues queues) throws InterruptedException {
+        return queues.queue.enqueue(element);
+    }
+
+    @Benchmark
+    @Group("p4c4")
+    @GroupThreads(4)
+    public Optional<Integer> p4c4Consumer(Queues queues) throws InterruptedException {
+        return queues.queue.dequeue();
+    }
+}
@@ -0,0 +1,173 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import pt.isel.pc.demos.li51n.synchronizers.OptimizedSemaphore;
+import pt.isel.pc.examples.synchronizers.SimpleUnarySemaphoreV0;
+import pt.isel.pc.examples.synchronizers.SimpleUnarySemaphoreV1;
+import pt.isel.pc.examples.synchronizers.UnarySemaphore;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Compares the unary semaphores with {@link java.util.concurrent.Semaphore}, on three scenarios
+ * that define the initial units as a function of the number of benchmark threads:
+ * uncontended (one unit per thread), moderately contended (one unit per two threads) and
+ * oversubscribed (a single unit).
+ * Besides the throughput, it reports the number of acquisitions and the number of voluntary context
+ * switches (see {@link ContextSwitches}) during each iteration.
+ * Their ratio is the number of wake-ups per successful acquire, which shows the cost of
+ * {@link Object#notifyAll} on {@link SimpleUnarySemaphoreV0}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnarySemaphoreBenchmark {
+
+    public enum Implementation {
+        SIMPLE_V0(SimpleUnarySemaphoreV0::new),
+        SIMPLE_V1(SimpleUnarySemaphoreV1::new),
+        OPTIMIZED(OptimizedSemaphoreAdapter::new),
+        JUC_SEMAPHORE(units -> new JucSemaphoreAdapter(new Semaphore(units))),
+        JUC_SEMAPHORE_FAIR(units -> new JucSemaphoreAdapter(new Semaphore(units, true)));
+
+        private final IntFunction<UnarySemaphore> factory;
+
+        Implementation(IntFunction<UnarySemaphore> factory) {
+            this.factory = factory;
+        }
+
+        public UnarySemaphore create(int initialUnits) {
+            return factory.apply(initialUnits);
+        }
+    }
+
+    public enum Scenario {
+        UNCONTENDED {
+            @Override
+            int initialUnits(int threads) {
+                return threads;
+            }
+        },
+        MODERATE {
+            @Override
+            int initialUnits(int threads) {
+                return Math.max(1, threads / 2);
+            }
+        },
+        OVERSUBSCRIBED {
+            @Override
+            int initialUnits(int threads) {
+                return 1;
+            }
+        };
+
+        abstract int initialUnits(int threads);
+    }
+
+    /**
+     * Per-thread counters for the successful acquisitions and the voluntary context switches.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WakeupCounters {
+        public long acquires;
+        public long voluntaryContextSwitches;
+        private long startContextSwitches;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            acquires = 0;
+            voluntaryContextSwitches = 0;
+            startContextSwitches = ContextSwitches.voluntary();
+        }
+
+        @TearDown(Level.Iteration)
+        public void end() {
+            voluntaryContextSwitches = ContextSwitches.voluntary() - startContextSwitches;
+        }
+    }
+
+    @Param({"SIMPLE_V0", "SIMPLE_V1", "OPTIMIZED", "JUC_SEMAPHORE", "JUC_SEMAPHORE_FAIR"})
+    public Implementation implementation;
+
+    @Param({"UNCONTENDED", "MODERATE", "OVERSUBSCRIBED"})
+    public Scenario scenario;
+
+    @Param({"0", "500"})
+    public int holdTokens;
+
+    private UnarySemaphore semaphore;
+
+    @Setup(Level.Trial)
+    public void setup(BenchmarkParams params) {
+        semaphore = implementation.create(scenario.initialUnits(params.getThreads()));
+    }
+
+    @Benchmark
+    public void acquireAndRelease(WakeupCounters counters) throws InterruptedException {
+        semaphore.acquire(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        counters.acquires += 1;
+        Blackhole.consumeCPU(holdTokens);
+        semaphore.release();
+    }
+
+    // OptimizedSemaphore only supports acquisition without timeout
+    static class OptimizedSemaphoreAdapter implements UnarySemaphore {
+
+        private final OptimizedSemaphore delegate;
+
+        OptimizedSemaphoreAdapter(int initialUnits) {
+            this.delegate = new OptimizedSemaphore(initialUnits);
+        }
+
+        @Override
+        public boolean acquire(long timeout, TimeUnit timeUnit) throws InterruptedException {
+            delegate.acquire();
+            return true;
+        }
+
+        @Override
+        public void release() {
+            delegate.release();
+        }
+    }
+
+    static class JucSemaphoreAdapter implements UnarySemaphore {
+
+        private final Semaphore delegate;
+
+        JucSemaphoreAdapter(Semaphore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean acquire(long timeout, TimeUnit timeUnit) throws InterruptedException {
+            return delegate.tryAcquire(timeout, timeUnit);
+        }
+
+        @Override
+        public void release() {
+            delegate.release();
+        }
+    }
+}
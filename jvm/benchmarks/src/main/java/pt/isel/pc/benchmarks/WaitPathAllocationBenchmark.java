@@ -0,0 +1,132 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.demos.li51n.synchronizers.BlockingQueue;
+import pt.isel.pc.examples.synchronizers.NArySemaphore;
+import pt.isel.pc.examples.synchronizers.NArySemaphoreUsingKernelStyle;
+import pt.isel.pc.examples.synchronizers.NArySemaphoreWithLockFreeFastPath;
+
+import java.util.Optional;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the allocation on the wait path of the kernel-style synchronizers, where every operation
+ * needs to wait for another thread.
+ * Must be run with the GC profiler, e.g. {@code -prof gc}, and the relevant result is
+ * {@code gc.alloc.rate.norm}, i.e., the number of bytes allocated per operation.
+ * <ul>
+ *     <li>{@code semaphore}: two threads alternately acquire and release two semaphores with zero units,
+ *     so each acquisition waits for the release done by the other thread.
+ *     {@link NArySemaphoreUsingKernelStyle} uses reusable {@link pt.isel.pc.utils.Waiter} records,
+ *     while {@link NArySemaphoreWithLockFreeFastPath} still allocates a request, a list node and a condition
+ *     per wait.</li>
+ *     <li>{@code rendezvous}: a producer and a consumer exchange elements through a {@link BlockingQueue},
+ *     compared with {@link SynchronousQueue}.</li>
+ * </ul>
+ * The timeouts only ensure the threads don't stay blocked when the iteration ends.
+ * Note that a contended {@link java.util.concurrent.locks.ReentrantLock} may still allocate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaitPathAllocationBenchmark {
+
+    private static final long TIMEOUT_MS = 10;
+
+    public enum SemaphoreImplementation {
+        KERNEL_STYLE(NArySemaphoreUsingKernelStyle::new),
+        LOCK_FREE_FAST_PATH(NArySemaphoreWithLockFreeFastPath::new);
+
+        private final IntFunction<NArySemaphore> factory;
+
+        SemaphoreImplementation(IntFunction<NArySemaphore> factory) {
+            this.factory = factory;
+        }
+    }
+
+    @State(Scope.Group)
+    public static class Semaphores {
+
+        @Param({"KERNEL_STYLE", "LOCK_FREE_FAST_PATH"})
+        public SemaphoreImplementation implementation;
+
+        NArySemaphore ping;
+        NArySemaphore pong;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            ping = implementation.factory.apply(0);
+            pong = implementation.factory.apply(0);
+        }
+    }
+
+    @State(Scope.Group)
+    public static class Queues {
+        final BlockingQueue<Integer> blockingQueue = new BlockingQueue<>();
+        final SynchronousQueue<Integer> synchronousQueue = new SynchronousQueue<>();
+    }
+
+    private static final Integer element = 42;
+
+    @Benchmark
+    @Group("semaphore")
+    @GroupThreads(1)
+    public boolean semaphorePing(Semaphores semaphores) throws InterruptedException {
+        semaphores.pong.release(1);
+        return semaphores.ping.acquire(1, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("semaphore")
+    @GroupThreads(1)
+    public boolean semaphorePong(Semaphores semaphores) throws InterruptedException {
+        boolean acquired = semaphores.pong.acquire(1, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        semaphores.ping.release(1);
+        return acquired;
+    }
+
+    @Benchmark
+    @Group("rendezvous")
+    @GroupThreads(1)
+    public boolean blockingQueueProducer(Queues queues) throws InterruptedException {
+        return queues.blockingQueue.enqueue(element, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("rendezvous")
+    @GroupThreads(1)
+    public Optional<Integer> blockingQueueConsumer(Queues queues) throws InterruptedException {
+        return queues.blockingQueue.dequeue(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("synchronousQueue")
+    @GroupThreads(1)
+    public boolean synchronousQueueProducer(Queues queues) throws InterruptedException {
+        return queues.synchronousQueue.offer(element, TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("synchronousQueue")
+    @GroupThreads(1)
+    public Integer synchronousQueueConsumer(Queues queues) throws InterruptedException {
+        return queues.synchronousQueue.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+}
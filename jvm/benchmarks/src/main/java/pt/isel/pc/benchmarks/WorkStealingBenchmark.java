@@ -0,0 +1,169 @@
+package pt.isel.pc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pt.isel.pc.demos.li51n.synchronizers.SimpleThreadPool;
+import pt.isel.pc.demos.li51n.synchronizers.WorkStealingThreadPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the time to run a recursive computation on a thread pool: a binary tree of tiny runnables, where
+ * each runnable executes its two children, down to {@code depth}, i.e., {@code 2^(depth + 1) - 1} runnables.
+ * Each runnable completes when both children completed, without blocking, so the pool only runs the work.
+ * <ul>
+ *     <li>{@code SIMPLE}: {@link SimpleThreadPool}, where all the work goes through one queue and one lock.</li>
+ *     <li>{@code WORK_STEALING}: {@link WorkStealingThreadPool}, where each worker executes its children on its
+ *     own deque, and the idle workers steal from the others.</li>
+ *     <li>{@code FORK_JOIN}: {@link ForkJoinPool}, for reference.</li>
+ * </ul>
+ * All the pools have {@code workers} workers, kept alive between the computations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkStealingBenchmark {
+
+    interface Pool {
+        void execute(Runnable runnable);
+
+        void shutdown() throws InterruptedException;
+    }
+
+    public enum Implementation {
+        SIMPLE(workers -> {
+            SimpleThreadPool pool = new SimpleThreadPool(workers, workers, 1, TimeUnit.SECONDS);
+            return new Pool() {
+                @Override
+                public void execute(Runnable runnable) {
+                    pool.execute(runnable);
+                }
+
+                @Override
+                public void shutdown() throws InterruptedException {
+                    pool.shutdown();
+                    pool.awaitTermination(10, TimeUnit.SECONDS);
+                }
+            };
+        }),
+        WORK_STEALING(workers -> {
+            WorkStealingThreadPool pool = new WorkStealingThreadPool(workers);
+            return new Pool() {
+                @Override
+                public void execute(Runnable runnable) {
+                    pool.execute(runnable);
+                }
+
+                @Override
+                public void shutdown() throws InterruptedException {
+                    pool.shutdown();
+                    pool.awaitTermination(10, TimeUnit.SECONDS);
+                }
+            };
+        }),
+        FORK_JOIN(workers -> {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            return new Pool() {
+                @Override
+                public void execute(Runnable runnable) {
+                    pool.execute(runnable);
+                }
+
+                @Override
+                public void shutdown() throws InterruptedException {
+                    pool.shutdown();
+                    pool.awaitTermination(10, TimeUnit.SECONDS);
+                }
+            };
+        });
+
+        private final IntFunction<Pool> factory;
+
+        Implementation(IntFunction<Pool> factory) {
+            this.factory = factory;
+        }
+    }
+
+    @Param
+    public Implementation implementation;
+
+    @Param({"4"})
+    public int workers;
+
+    @Param({"10", "14"})
+    public int depth;
+
+    private Pool pool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = implementation.factory.apply(workers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public void tree() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        pool.execute(new Node(pool, depth, null, done));
+        done.await();
+    }
+
+    private static final class Node implements Runnable {
+        private final Pool pool;
+        private final int depth;
+        private final Node parent;
+        private final CountDownLatch done;
+        // the children not yet completed
+        private final AtomicInteger pending = new AtomicInteger(2);
+
+        Node(Pool pool, int depth, Node parent, CountDownLatch done) {
+            this.pool = pool;
+            this.depth = depth;
+            this.parent = parent;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            if (depth == 0) {
+                complete(parent, done);
+                return;
+            }
+            pool.execute(new Node(pool, depth - 1, this, done));
+            pool.execute(new Node(pool, depth - 1, this, done));
+        }
+
+        // the last child to complete completes the parent, up to the root
+        private static void complete(Node node, CountDownLatch done) {
+            while (node != null) {
+                if (node.pending.decrementAndGet() != 0) {
+                    return;
+                }
+                node = node.parent;
+            }
+            done.countDown();
+        }
+    }
+}
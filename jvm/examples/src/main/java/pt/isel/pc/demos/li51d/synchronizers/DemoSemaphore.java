@@ -1,7 +1,10 @@
 package pt.isel.pc.demos.li51d.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
+import java.util.concurrent.TimeUnit;
+
 public class DemoSemaphore {
 
     private int units;
@@ -22,11 +25,11 @@ public class DemoSemaphore {
             if (Timeouts.noWait(timeout)) {
                 return false;
             }
-            final long deadline = Timeouts.start(timeout);
-            long remaining = Timeouts.remaining(deadline);
+            final Deadline deadline = Deadline.after(timeout, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
             while (true) {
                 try {
-                    monitor.wait(remaining);
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
                 } catch (InterruptedException e) {
                     if (units > 0) {
                         monitor.notify();
@@ -37,7 +40,7 @@ public class DemoSemaphore {
                     units -= 1;
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     return false;
                 }
@@ -1,8 +1,11 @@
 package pt.isel.pc.demos.li51d.synchronizers;
 
 import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
+import java.util.concurrent.TimeUnit;
+
 public class DemoSemaphore2 {
 
     static class Request {
@@ -33,12 +36,12 @@ public class DemoSemaphore2 {
             if (Timeouts.noWait(timeout)) {
                 return false;
             }
-            final long deadline = Timeouts.start(timeout);
-            long remaining = Timeouts.remaining(deadline);
+            final Deadline deadline = Deadline.after(timeout, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
             NodeLinkedList.Node<Request> node = queue.enqueue(new Request(requestedUnits));
             while (true) {
                 try {
-                    monitor.wait(remaining);
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
                 } catch (InterruptedException e) {
                     queue.remove(node);
                     notifyIfNeeded();
@@ -52,7 +55,7 @@ public class DemoSemaphore2 {
                     return true;
                 }
 
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     queue.remove(node);
                     notifyIfNeeded();
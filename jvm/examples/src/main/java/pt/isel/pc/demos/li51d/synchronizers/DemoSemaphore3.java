@@ -1,7 +1,10 @@
 package pt.isel.pc.demos.li51d.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
+import java.util.concurrent.TimeUnit;
+
 public class DemoSemaphore3 {
 
     private int units;
@@ -22,15 +25,15 @@ public class DemoSemaphore3 {
             if (Timeouts.noWait(timeout)) {
                 return false;
             }
-            final long deadline = Timeouts.start(timeout);
-            long remaining = Timeouts.remaining(deadline);
+            final Deadline deadline = Deadline.after(timeout, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
             while (true) {
-                monitor.wait(remaining);
+                TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
                 if (units >= requestedUnits) {
                     units -= requestedUnits;
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     return false;
                 }
@@ -1,8 +1,11 @@
 package pt.isel.pc.demos.li51d.synchronizers;
 
 import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
+import java.util.concurrent.TimeUnit;
+
 public class DemoSemaphore4 {
 
     static class Request {
@@ -34,12 +37,12 @@ public class DemoSemaphore4 {
                 return false;
             }
 
-            final long deadline = Timeouts.start(timeoutInMs);
-            long remaining = Timeouts.remaining(deadline);
+            final Deadline deadline = Deadline.after(timeoutInMs, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
             NodeLinkedList.Node<Request> localRequest = queue.enqueue(new Request(requestedUnits));
             while (true) {
                 try {
-                    monitor.wait(remaining);
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
                 } catch (InterruptedException e) {
                     queue.remove(localRequest);
                     notifyIfNeeded();
@@ -51,7 +54,7 @@ public class DemoSemaphore4 {
                     notifyIfNeeded();
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     queue.remove(localRequest);
                     notifyIfNeeded();
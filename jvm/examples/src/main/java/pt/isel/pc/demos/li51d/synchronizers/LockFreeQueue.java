@@ -1,22 +1,49 @@
 package pt.isel.pc.demos.li51d.synchronizers;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicReference;
 
+/*
+ * Michael-Scott queue
+ * - the node's next is a volatile field accessed via a VarHandle (one object per element)
+ * - optional exponential backoff after a failed CAS
+ */
 public class LockFreeQueue<E> {
 
     static class Node<E> {
-        final E value;
-        final AtomicReference<Node<E>> next;
+        E value;
+        volatile Node<E> next;
         Node(E value) {
             this.value = value;
-            next = new AtomicReference<>();
         }
     }
 
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            NEXT = MethodHandles.lookup().findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final int MIN_BACKOFF_SPINS = 1;
+    private static final int MAX_BACKOFF_SPINS = 1024;
+
     final AtomicReference<Node<E>> head = new AtomicReference<>();
     final AtomicReference<Node<E>> tail = new AtomicReference<>();
+    private final boolean useBackoff;
 
     public LockFreeQueue() {
+        this(false);
+    }
+
+    public LockFreeQueue(boolean useBackoff) {
+        this.useBackoff = useBackoff;
         Node<E> dummy = new Node<>(null);
         head.set(dummy);
         tail.set(dummy);
@@ -24,23 +51,63 @@ public class LockFreeQueue<E> {
 
     public void enqueue(E value) {
         Node<E> node = new Node<>(value);
+        int backoffLimit = MIN_BACKOFF_SPINS;
         while(true) {
             Node<E> observedTail = tail.get();
-            Node<E> observedNext = observedTail.next.get();
+            Node<E> observedNext = observedTail.next;
             // <----
             if(observedTail == tail.get()) { // <----
                 // <----
                 if (observedNext != null) {
                     tail.compareAndSet(observedTail, observedNext);
                 } else {
-                    if (observedTail.next.compareAndSet(null, node)) {
+                    if (NEXT.compareAndSet(observedTail, null, node)) {
                         tail.compareAndSet(observedTail, node);
                         return;
                     }
+                    backoffLimit = backoff(backoffLimit);
                 }
             }
         }
 
     }
 
+    public Optional<E> dequeue() {
+        int backoffLimit = MIN_BACKOFF_SPINS;
+        while(true) {
+            Node<E> observedHead = head.get();
+            Node<E> observedTail = tail.get();
+            Node<E> observedNext = observedHead.next;
+            if(observedHead == head.get()) {
+                if (observedHead == observedTail) {
+                    if (observedNext == null) {
+                        // empty
+                        return Optional.empty();
+                    }
+                    // lagging tail: help the enqueue in progress
+                    tail.compareAndSet(observedTail, observedNext);
+                } else {
+                    // read before the CAS, after it the value may be cleared
+                    E value = observedNext.value;
+                    if (head.compareAndSet(observedHead, observedNext)) {
+                        // observedNext is the new dummy node
+                        observedNext.value = null;
+                        return Optional.of(value);
+                    }
+                    backoffLimit = backoff(backoffLimit);
+                }
+            }
+        }
+    }
+
+    private int backoff(int limit) {
+        if (!useBackoff) {
+            return limit;
+        }
+        int spins = ThreadLocalRandom.current().nextInt(limit) + 1;
+        for (int i = 0; i < spins; ++i) {
+            Thread.onSpinWait();
+        }
+        return Math.min(limit * 2, MAX_BACKOFF_SPINS);
+    }
 }
@@ -1,5 +1,6 @@
 package pt.isel.pc.demos.li51d.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
 import java.util.concurrent.TimeUnit;
@@ -46,14 +47,14 @@ public class ManualResetEvent {
             if (Timeouts.noWait(timeout)) {
                 return false;
             }
-            long deadline = Timeouts.start(timeout);
-            long remaining = Timeouts.remaining(deadline);
+            Deadline deadline = Deadline.after(timeout, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
             while (true) {
-                condition.await(remaining, TimeUnit.MILLISECONDS);
+                condition.awaitNanos(remaining);
                 if (flag) {
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     return false;
                 }
@@ -1,10 +1,16 @@
 package pt.isel.pc.demos.li51d.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.TimerWheel;
 import pt.isel.pc.utils.Timeouts;
+import pt.isel.pc.utils.Waiter;
+import pt.isel.pc.utils.WaiterQueue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -14,33 +20,76 @@ import java.util.concurrent.locks.ReentrantLock;
  */
 public class ManualResetEvent2 {
 
-    static class Request {
+    private boolean flag = false;
+    private final Lock monitor = new ReentrantLock();
+    private final WaiterQueue queue = new WaiterQueue();
+
+    private final TimerWheel timer;
+
+    // a pending waitSetAsync, which is also the future returned to the caller
+    private class AsyncRequest extends CompletableFuture<Boolean> {
+        NodeLinkedList.Node<AsyncRequest> node;
+        // null for infinite timeouts
+        TimerWheel.Timeout timeout;
+        // only accessed while holding the lock
         boolean isDone = false;
-        final Condition condition;
 
-        Request(Condition condition) {
-            this.condition = condition;
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                giveUp(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new CompletableFuture<>();
         }
     }
 
-    private boolean flag = false;
-    private final Lock monitor = new ReentrantLock();
-    private final NodeLinkedList<Request> queue = new NodeLinkedList<>();
+    private final NodeLinkedList<AsyncRequest> asyncQueue = new NodeLinkedList<>();
+
+    public ManualResetEvent2() {
+        this(TimerWheel.getDefault());
+    }
+
+    // the timer is used for the waitSetAsync timeouts
+    public ManualResetEvent2(TimerWheel timer) {
+        this.timer = timer;
+    }
 
     // puts the event in the set state (i.e. flag == true)
     // and frees all waiting threads
     public void set() {
+        List<AsyncRequest> requestsToComplete = null;
         monitor.lock();
         try {
             flag = true;
             while(queue.isNotEmpty()) {
-                NodeLinkedList.Node<Request> node = queue.pull();
-                node.value.isDone = true;
-                node.value.condition.signal();
+                Waiter waiter = queue.pull();
+                waiter.isDone = true;
+                waiter.signal();
+            }
+            if (asyncQueue.isNotEmpty()) {
+                requestsToComplete = new ArrayList<>(asyncQueue.getCount());
+                while (asyncQueue.isNotEmpty()) {
+                    AsyncRequest request = asyncQueue.pull().value;
+                    request.isDone = true;
+                    requestsToComplete.add(request);
+                }
             }
         } finally {
             monitor.unlock();
         }
+        // the futures are completed outside the lock, so their continuations run without holding it
+        if (requestsToComplete != null) {
+            for (AsyncRequest request : requestsToComplete) {
+                cancelTimeout(request);
+                request.complete(true);
+            }
+        }
     }
 
     // puts the event in the reset state (i.e. flag == false)
@@ -65,25 +114,23 @@ public class ManualResetEvent2 {
                 return false;
             }
             // wait-path
-            long deadline = Timeouts.start(timeout);
-            long remaining = Timeouts.remaining(deadline);
-            Condition threadCondition = monitor.newCondition();
-            NodeLinkedList.Node<Request> localNode = queue.enqueue(
-                    new Request(threadCondition));
+            Deadline deadline = Deadline.after(timeout, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
+            Waiter localNode = queue.enqueue(Waiter.prepare());
             while (true) {
                 try {
-                    threadCondition.await(remaining, TimeUnit.MILLISECONDS);
+                    localNode.awaitNanos(monitor, remaining);
                 } catch (InterruptedException e) {
-                    if(!localNode.value.isDone) {
+                    if(!localNode.isDone) {
                         queue.remove(localNode);
                     }
                     throw e;
                 }
                 // exit condition uses the thread's request
-                if (localNode.value.isDone) {
+                if (localNode.isDone) {
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     queue.remove(localNode);
                     return false;
@@ -93,6 +140,58 @@ public class ManualResetEvent2 {
             monitor.unlock();
         }
     }
+
+    // asynchronous version of waitSet: the returned future completes with true when the event is set,
+    // or with false on timeout. Cancelling the future removes the request from the queue.
+    public CompletableFuture<Boolean> waitSetAsync(long timeoutInMs) {
+        monitor.lock();
+        try {
+            // fast-path
+            if (flag) {
+                return CompletableFuture.completedFuture(true);
+            }
+
+            if (Timeouts.noWait(timeoutInMs)) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            // async-path
+            AsyncRequest request = new AsyncRequest();
+            request.node = asyncQueue.enqueue(request);
+            if (!Deadline.isInfinite(timeoutInMs, TimeUnit.MILLISECONDS)) {
+                request.timeout = timer.schedule(() -> {
+                    if (giveUp(request)) {
+                        request.complete(false);
+                    }
+                }, timeoutInMs, TimeUnit.MILLISECONDS);
+            }
+            return request;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    // removes a request that timed out or was cancelled, if it is still queued
+    private boolean giveUp(AsyncRequest request) {
+        monitor.lock();
+        try {
+            if (request.isDone) {
+                return false;
+            }
+            asyncQueue.remove(request.node);
+            request.isDone = true;
+        } finally {
+            monitor.unlock();
+        }
+        cancelTimeout(request);
+        return true;
+    }
+
+    private static void cancelTimeout(AsyncRequest request) {
+        if (request.timeout != null) {
+            request.timeout.cancel();
+        }
+    }
 }
 
 /*
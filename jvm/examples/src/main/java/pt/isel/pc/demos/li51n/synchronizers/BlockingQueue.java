@@ -1,52 +1,53 @@
 package pt.isel.pc.demos.li51n.synchronizers;
 
-import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
+import pt.isel.pc.utils.Waiter;
+import pt.isel.pc.utils.WaiterQueue;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+/*
+ * With capacity 0 (the default) it is a rendezvous channel: every enqueue waits for a dequeue.
+ * With a positive capacity, up to capacity elements are kept on a buffer and enqueue only waits when it is full.
+ * Invariants:
+ * - there are waiting receivers only if the buffer is empty
+ * - there are waiting senders only if the buffer is full
+ */
 public class BlockingQueue<E> {
 
-    static class EnqueueRequest<E> {
-        boolean isDone = false;
-        final Condition condition;
-        final E elementToSend;
+    // the waiting senders and receivers, with the element to send or the received element on Waiter.item
+    private final WaiterQueue senders = new WaiterQueue();
+    private final WaiterQueue receivers = new WaiterQueue();
+    private final Lock monitor = new ReentrantLock();
 
-        EnqueueRequest(E elementToSend, Condition condition) {
+    private final int capacity;
+    private final ArrayDeque<E> buffer;
 
-            this.elementToSend = elementToSend;
-            this.condition = condition;
-        }
+    public BlockingQueue() {
+        this(0);
     }
 
-    static class DequeueRequest<E> {
-        boolean isDone = false;
-        final Condition condition;
-        E receivedElement = null;
-
-        DequeueRequest(Condition condition) {
-
-            this.condition = condition;
+    public BlockingQueue(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
         }
+        this.capacity = capacity;
+        this.buffer = new ArrayDeque<>(capacity);
     }
 
-    private final NodeLinkedList<EnqueueRequest<E>> senders = new NodeLinkedList<>();
-    private final NodeLinkedList<DequeueRequest<E>> receivers = new NodeLinkedList<>();
-    private final Lock monitor = new ReentrantLock();
-
     public boolean enqueue(E element, long timeout, TimeUnit timeUnit) throws InterruptedException {
         monitor.lock();
         try {
             // fast path
-            if (receivers.isNotEmpty()) {
-                NodeLinkedList.Node<DequeueRequest<E>> receiver = receivers.pull();
-                receiver.value.receivedElement = element;
-                receiver.value.isDone = true;
-                receiver.value.condition.signal();
+            if (tryEnqueue(element)) {
                 return true;
             }
             // wait path
@@ -54,15 +55,16 @@ public class BlockingQueue<E> {
                 return false;
             }
 
-            long deadline = Timeouts.start(timeout, timeUnit);
-            long remaining = Timeouts.remaining(deadline);
-            NodeLinkedList.Node<EnqueueRequest<E>> node = senders.enqueue(
-                    new EnqueueRequest<>(element, monitor.newCondition()));
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
+            Waiter node = Waiter.prepare();
+            node.item = element;
+            senders.enqueue(node);
             while (true) {
                 try {
-                    node.value.condition.await(remaining, TimeUnit.MILLISECONDS);
+                    node.awaitNanos(monitor, remaining);
                 } catch (InterruptedException e) {
-                    if (node.value.isDone) {
+                    if (node.isDone) {
                         Thread.currentThread().interrupt();
                         return true;
                     }
@@ -70,10 +72,10 @@ public class BlockingQueue<E> {
                     throw e;
                 }
                 // evaluate success condition
-                if (node.value.isDone) {
+                if (node.isDone) {
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     senders.remove(node);
                     return false;
@@ -85,41 +87,107 @@ public class BlockingQueue<E> {
         }
     }
 
+    /**
+     * Enqueues the elements in order, waiting for space while needed.
+     * All the elements that fit are moved while holding the lock once, so a producer with many elements
+     * doesn't pay for a lock acquisition per element.
+     *
+     * @return the number of enqueued elements, which is less than the number of elements on timeout.
+     * @throws InterruptedException if interrupted before enqueuing any element. If some elements were already
+     *                              enqueued, it returns their number with the interrupt status set.
+     */
+    public int enqueueAll(List<? extends E> elements, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        monitor.lock();
+        try {
+            // fast path
+            int count = 0;
+            while (count < elements.size() && tryEnqueue(elements.get(count))) {
+                count += 1;
+            }
+            if (count == elements.size() || Timeouts.noWait(timeout)) {
+                return count;
+            }
+
+            // wait path, one element at a time, so that the other senders keep their FIFO order
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
+            Waiter node = Waiter.prepare();
+            node.item = elements.get(count);
+            senders.enqueue(node);
+            while (true) {
+                try {
+                    node.awaitNanos(monitor, remaining);
+                } catch (InterruptedException e) {
+                    if (node.isDone) {
+                        Thread.currentThread().interrupt();
+                        return count + 1;
+                    }
+                    senders.remove(node);
+                    if (count == 0) {
+                        throw e;
+                    }
+                    Thread.currentThread().interrupt();
+                    return count;
+                }
+                if (node.isDone) {
+                    count += 1;
+                    while (count < elements.size() && tryEnqueue(elements.get(count))) {
+                        count += 1;
+                    }
+                    if (count == elements.size()) {
+                        return count;
+                    }
+                    node = Waiter.prepare();
+                    node.item = elements.get(count);
+                    senders.enqueue(node);
+                }
+                remaining = deadline.remainingNanos();
+                if (Timeouts.isTimeout(remaining)) {
+                    senders.remove(node);
+                    return count;
+                }
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
     public Optional<E> dequeue(long timeout, TimeUnit timeUnit) throws InterruptedException {
         monitor.lock();
         try {
             // fast path
+            if (!buffer.isEmpty()) {
+                E element = buffer.poll();
+                fillBufferFromSenders();
+                return Optional.of(element);
+            }
             if (senders.isNotEmpty()) {
-                NodeLinkedList.Node<EnqueueRequest<E>> sender = senders.pull();
-                sender.value.isDone = true;
-                sender.value.condition.signal();
-                return Optional.of(sender.value.elementToSend);
+                return Optional.of(takeFromSender());
             }
             // wait path
             if (Timeouts.noWait(timeout)) {
                 return Optional.empty();
             }
 
-            long deadline = Timeouts.start(timeout, timeUnit);
-            long remaining = Timeouts.remaining(deadline);
-            NodeLinkedList.Node<DequeueRequest<E>> node = receivers.enqueue(
-                    new DequeueRequest<>(monitor.newCondition()));
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
+            Waiter node = receivers.enqueue(Waiter.prepare());
             while (true) {
                 try {
-                    node.value.condition.await(remaining, TimeUnit.MILLISECONDS);
+                    node.awaitNanos(monitor, remaining);
                 } catch (InterruptedException e) {
-                    if (node.value.isDone) {
+                    if (node.isDone) {
                         Thread.currentThread().interrupt();
-                        return Optional.of(node.value.receivedElement);
+                        return Optional.of(itemOf(node));
                     }
                     receivers.remove(node);
                     throw e;
                 }
                 // evaluate success condition
-                if (node.value.isDone) {
-                    return Optional.of(node.value.receivedElement);
+                if (node.isDone) {
+                    return Optional.of(itemOf(node));
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     receivers.remove(node);
                     return Optional.empty();
@@ -129,4 +197,125 @@ public class BlockingQueue<E> {
             monitor.unlock();
         }
     }
+
+    /**
+     * Dequeues up to {@code max} elements while holding the lock once, waiting only if there are none.
+     *
+     * @return the dequeued elements, in order, or an empty list on timeout.
+     */
+    public List<E> dequeueBatch(int max, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        if (max <= 0) {
+            throw new IllegalArgumentException("max must be positive");
+        }
+        monitor.lock();
+        try {
+            // fast path
+            if (!buffer.isEmpty() || senders.isNotEmpty()) {
+                List<E> elements = new ArrayList<>(Math.min(max, buffer.size() + senders.getCount()));
+                takeAvailable(elements, max);
+                return elements;
+            }
+            // wait path
+            if (Timeouts.noWait(timeout)) {
+                return Collections.emptyList();
+            }
+
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
+            Waiter node = receivers.enqueue(Waiter.prepare());
+            while (true) {
+                try {
+                    node.awaitNanos(monitor, remaining);
+                } catch (InterruptedException e) {
+                    if (node.isDone) {
+                        Thread.currentThread().interrupt();
+                        return takeAvailableAfter(itemOf(node), max);
+                    }
+                    receivers.remove(node);
+                    throw e;
+                }
+                // evaluate success condition
+                if (node.isDone) {
+                    return takeAvailableAfter(itemOf(node), max);
+                }
+                remaining = deadline.remainingNanos();
+                if (Timeouts.isTimeout(remaining)) {
+                    receivers.remove(node);
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Gives the element to a waiting receiver or adds it to the buffer, if there is space.
+     */
+    private boolean tryEnqueue(E element) {
+        if (receivers.isNotEmpty()) {
+            Waiter receiver = receivers.pull();
+            receiver.item = element;
+            receiver.isDone = true;
+            receiver.signal();
+            return true;
+        }
+        if (buffer.size() < capacity) {
+            buffer.add(element);
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Returns the element received while waiting followed by the ones available, up to max.
+     */
+    private List<E> takeAvailableAfter(E first, int max) {
+        List<E> elements = new ArrayList<>();
+        elements.add(first);
+        takeAvailable(elements, max);
+        return elements;
+    }
+
+    /*
+     * Must be called while holding the lock.
+     */
+    private void takeAvailable(List<E> elements, int max) {
+        while (elements.size() < max && !buffer.isEmpty()) {
+            elements.add(buffer.poll());
+            fillBufferFromSenders();
+        }
+        // with capacity 0 the elements are only on the senders
+        while (elements.size() < max && senders.isNotEmpty()) {
+            elements.add(takeFromSender());
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Moves the elements of the waiting senders to the buffer, keeping the FIFO order.
+     */
+    private void fillBufferFromSenders() {
+        while (senders.isNotEmpty() && buffer.size() < capacity) {
+            buffer.add(takeFromSender());
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     */
+    private E takeFromSender() {
+        Waiter sender = senders.pull();
+        E element = itemOf(sender);
+        sender.isDone = true;
+        sender.signal();
+        return element;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E itemOf(Waiter waiter) {
+        return (E) waiter.item;
+    }
 }
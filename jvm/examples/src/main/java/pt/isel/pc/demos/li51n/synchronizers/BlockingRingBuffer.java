@@ -0,0 +1,156 @@
+package pt.isel.pc.demos.li51n.synchronizers;
+
+import pt.isel.pc.utils.Deadline;
+import pt.isel.pc.utils.Timeouts;
+import pt.isel.pc.utils.Waiter;
+import pt.isel.pc.utils.WaiterQueue;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Blocking queue over a LockFreeRingBuffer, which only uses the lock when it needs to wait,
+ * i.e., when the ring buffer is empty (dequeue) or full (enqueue).
+ * - The waiting threads are on FIFO queues, but are only notified that the state changed and must retry,
+ *   so a thread that didn't wait may get the element (or the free slot) first.
+ * - A waiting thread increments the number of waiters before retrying the ring buffer, and the other side
+ *   reads the number of waiters after changing the ring buffer, so at least one of them sees the other.
+ *   Only when there are waiters does the other side acquire the lock to notify one of them.
+ * - The number of waiters is decremented when a thread is removed from the queue, so that a thread
+ *   already notified but not yet running doesn't make every following operation acquire the lock.
+ */
+public class BlockingRingBuffer<E> {
+
+    private final LockFreeRingBuffer<E> ring;
+
+    private final AtomicInteger waitingSenders = new AtomicInteger();
+    private final AtomicInteger waitingReceivers = new AtomicInteger();
+    private final WaiterQueue senders = new WaiterQueue();
+    private final WaiterQueue receivers = new WaiterQueue();
+    private final Lock monitor = new ReentrantLock();
+
+    // the capacity must be at least 2 and is rounded up to a power of two, as in LockFreeRingBuffer
+    public BlockingRingBuffer(int capacity) {
+        ring = new LockFreeRingBuffer<>(capacity);
+    }
+
+    public boolean enqueue(E element, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        // fast path, without acquiring the lock
+        if (ring.offer(element)) {
+            notifyOne(waitingReceivers, receivers);
+            return true;
+        }
+        if (Timeouts.noWait(timeout)) {
+            return false;
+        }
+
+        // wait path
+        Deadline deadline = Deadline.after(timeout, timeUnit);
+        monitor.lock();
+        try {
+            while (true) {
+                waitingSenders.incrementAndGet();
+                if (ring.offer(element)) {
+                    waitingSenders.decrementAndGet();
+                    notifyOne(waitingReceivers, receivers);
+                    return true;
+                }
+                long remaining = deadline.remainingNanos();
+                if (Timeouts.isTimeout(remaining)) {
+                    waitingSenders.decrementAndGet();
+                    return false;
+                }
+                await(senders, waitingSenders, remaining);
+            }
+        } finally {
+            // a notification received and not used goes to the next waiting sender
+            if (!ring.isFull()) {
+                signalHead(senders, waitingSenders);
+            }
+            monitor.unlock();
+        }
+    }
+
+    public Optional<E> dequeue(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        // fast path, without acquiring the lock
+        E element = ring.poll();
+        if (element != null) {
+            notifyOne(waitingSenders, senders);
+            return Optional.of(element);
+        }
+        if (Timeouts.noWait(timeout)) {
+            return Optional.empty();
+        }
+
+        // wait path
+        Deadline deadline = Deadline.after(timeout, timeUnit);
+        monitor.lock();
+        try {
+            while (true) {
+                waitingReceivers.incrementAndGet();
+                element = ring.poll();
+                if (element != null) {
+                    waitingReceivers.decrementAndGet();
+                    notifyOne(waitingSenders, senders);
+                    return Optional.of(element);
+                }
+                long remaining = deadline.remainingNanos();
+                if (Timeouts.isTimeout(remaining)) {
+                    waitingReceivers.decrementAndGet();
+                    return Optional.empty();
+                }
+                await(receivers, waitingReceivers, remaining);
+            }
+        } finally {
+            // a notification received and not used goes to the next waiting receiver
+            if (!ring.isEmpty()) {
+                signalHead(receivers, waitingReceivers);
+            }
+            monitor.unlock();
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Waits until notified, interrupted or the timeout expires, always leaving the queue.
+     * The number of waiters was already incremented, and is decremented when the node leaves the queue.
+     */
+    private void await(WaiterQueue queue, AtomicInteger waiting, long remaining) throws InterruptedException {
+        Waiter node = queue.enqueue(Waiter.prepare());
+        try {
+            node.awaitNanos(monitor, remaining);
+        } finally {
+            if (!node.isDone) {
+                queue.remove(node);
+                waiting.decrementAndGet();
+            }
+        }
+    }
+
+    private void notifyOne(AtomicInteger waiting, WaiterQueue queue) {
+        if (waiting.get() == 0) {
+            return;
+        }
+        monitor.lock();
+        try {
+            signalHead(queue, waiting);
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     */
+    private static void signalHead(WaiterQueue queue, AtomicInteger waiting) {
+        if (queue.isNotEmpty()) {
+            Waiter waiter = queue.pull();
+            waiting.decrementAndGet();
+            waiter.isDone = true;
+            waiter.signal();
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package pt.isel.pc.demos.li51n.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
+import java.util.concurrent.TimeUnit;
+
 public class DemoSemaphore2 {
 
     private int units;
@@ -24,11 +27,11 @@ public class DemoSemaphore2 {
                 return false;
             }
 
-            final long deadline = Timeouts.start(timeoutInMs);
-            long remaining = Timeouts.remaining(deadline);
+            final Deadline deadline = Deadline.after(timeoutInMs, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
             while (true) {
                 try {
-                    monitor.wait(remaining);
+                    TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
                 } catch (InterruptedException e) {
                     if (units > 0) {
                         monitor.notify();
@@ -39,7 +42,7 @@ public class DemoSemaphore2 {
                     units -= 1;
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if(Timeouts.isTimeout(remaining)) {
                     return false;
                 }
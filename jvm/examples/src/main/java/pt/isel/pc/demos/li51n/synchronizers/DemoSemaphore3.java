@@ -1,7 +1,10 @@
 package pt.isel.pc.demos.li51n.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
+import java.util.concurrent.TimeUnit;
+
 public class DemoSemaphore3 {
 
     private int units;
@@ -24,15 +27,15 @@ public class DemoSemaphore3 {
                 return false;
             }
 
-            final long deadline = Timeouts.start(timeoutInMs);
-            long remaining = Timeouts.remaining(deadline);
+            final Deadline deadline = Deadline.after(timeoutInMs, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
             while (true) {
-                monitor.wait(remaining);
+                TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
                 if(units >= requestedUnits) {
                     units -= requestedUnits;
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if(Timeouts.isTimeout(remaining)) {
                     return false;
                 }
@@ -1,6 +1,7 @@
 package pt.isel.pc.demos.li51n.synchronizers;
 
 import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
 import java.util.concurrent.TimeUnit;
@@ -44,14 +45,14 @@ public class DemoSemaphore5 {
             }
 
             // wait-path
-            final long deadline = Timeouts.start(timeoutInMs);
-            long remaining = Timeouts.remaining(deadline);
+            final Deadline deadline = Deadline.after(timeoutInMs, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
             Condition threadCondition = monitor.newCondition();
             NodeLinkedList.Node<Request> localRequest = queue.enqueue(
                     new Request(requestedUnits, threadCondition));
             while (true) {
                 try {
-                    threadCondition.await(remaining, TimeUnit.MILLISECONDS);
+                    threadCondition.awaitNanos(remaining);
                 } catch (InterruptedException e) {
                     queue.remove(localRequest);
                     notifyIfNeeded();
@@ -63,7 +64,7 @@ public class DemoSemaphore5 {
                     notifyIfNeeded();
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     queue.remove(localRequest);
                     notifyIfNeeded();
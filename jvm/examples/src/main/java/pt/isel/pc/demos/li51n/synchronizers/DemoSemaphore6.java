@@ -1,29 +1,18 @@
 package pt.isel.pc.demos.li51n.synchronizers;
 
-import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
+import pt.isel.pc.utils.Waiter;
+import pt.isel.pc.utils.WaiterQueue;
 
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class DemoSemaphore6 {
 
-    static class Request {
-        final int units;
-        final Condition condition;
-        boolean isDone = false;
-
-        Request(int units, Condition condition) {
-
-            this.units = units;
-            this.condition = condition;
-        }
-    }
-
     private int units;
-    private final NodeLinkedList<Request> queue = new NodeLinkedList<>();
+    private final WaiterQueue queue = new WaiterQueue();
     private final Lock monitor = new ReentrantLock();
 
     public DemoSemaphore6(int initialUnits) {
@@ -45,16 +34,16 @@ public class DemoSemaphore6 {
             }
 
             // wait-path
-            final long deadline = Timeouts.start(timeoutInMs);
-            long remaining = Timeouts.remaining(deadline);
-            Condition threadCondition = monitor.newCondition();
-            NodeLinkedList.Node<Request> localRequest = queue.enqueue(
-                    new Request(requestedUnits, threadCondition));
+            final Deadline deadline = Deadline.after(timeoutInMs, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
+            Waiter localRequest = Waiter.prepare();
+            localRequest.units = requestedUnits;
+            queue.enqueue(localRequest);
             while (true) {
                 try {
-                    threadCondition.await(remaining, TimeUnit.MILLISECONDS);
+                    localRequest.awaitNanos(monitor, remaining);
                 } catch (InterruptedException e) {
-                    if(!localRequest.value.isDone) {
+                    if(!localRequest.isDone) {
                         queue.remove(localRequest);
                         notifyIfNeeded();
                         throw e;
@@ -62,10 +51,10 @@ public class DemoSemaphore6 {
                     Thread.currentThread().interrupt();
                     return true;
                 }
-                if (localRequest.value.isDone) {
+                if (localRequest.isDone) {
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     queue.remove(localRequest);
                     notifyIfNeeded();
@@ -88,11 +77,11 @@ public class DemoSemaphore6 {
     }
 
     private void notifyIfNeeded() {
-        while (queue.isNotEmpty() && units >= queue.getHeadValue().units) {
-            NodeLinkedList.Node<Request> node = queue.pull();
-            node.value.isDone = true;
-            node.value.condition.signal();
-            units -= node.value.units;
+        while (queue.isNotEmpty() && units >= queue.getHead().units) {
+            Waiter waiter = queue.pull();
+            waiter.isDone = true;
+            waiter.signal();
+            units -= waiter.units;
         }
     }
 }
@@ -0,0 +1,107 @@
+package pt.isel.pc.demos.li51n.synchronizers;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * LockFreeStack with elimination backoff (Hendler, Shavit and Yerushalmi).
+ * A push and a pop that happen at the same time cancel each other, so they can exchange the value
+ * without changing the stack. When the CAS on head fails, i.e., there is contention,
+ * - a push offers its node on a random slot of the elimination array and waits a few spins for a pop to take it;
+ * - a pop looks at a random slot and takes the node offered there, if any.
+ * If there is no exchange, both retry on head.
+ * A node is taken from a slot with a CAS, so only one of the pop or the pusher giving up succeeds.
+ * Since each push offers a new node, there is no ABA problem on the slots.
+ */
+public class EliminationBackoffStack<E> {
+
+    private static class Node<E> {
+        final E value;
+        Node<E> next;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+
+    private static final int ELIMINATION_SPINS = 128;
+
+    private final AtomicReference<Node<E>> head = new AtomicReference<>(null);
+    private final AtomicReferenceArray<Node<E>> eliminationArray;
+
+    public EliminationBackoffStack() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public EliminationBackoffStack(int eliminationArraySize) {
+        if (eliminationArraySize <= 0) {
+            throw new IllegalArgumentException("eliminationArraySize must be positive");
+        }
+        eliminationArray = new AtomicReferenceArray<>(eliminationArraySize);
+    }
+
+    public void push(E value) {
+        Node<E> node = new Node<>(value);
+        while (true) {
+            Node<E> observedHead = head.get();
+            node.next = observedHead;
+            if (head.compareAndSet(observedHead, node)) {
+                return;
+            }
+            // contention, try to eliminate
+            if (tryOffer(node)) {
+                return;
+            }
+        }
+    }
+
+    public Optional<E> pop() {
+        while (true) {
+            Node<E> observedHead = head.get();
+            if (observedHead == null) {
+                return Optional.empty();
+            }
+            if (head.compareAndSet(observedHead, observedHead.next)) {
+                return Optional.of(observedHead.value);
+            }
+            // contention, try to eliminate
+            Node<E> node = tryTake();
+            if (node != null) {
+                return Optional.of(node.value);
+            }
+        }
+    }
+
+    // returns true if a pop took the node
+    private boolean tryOffer(Node<E> node) {
+        int slot = randomSlot();
+        if (!eliminationArray.compareAndSet(slot, null, node)) {
+            // the slot is busy
+            return false;
+        }
+        for (int i = 0; i < ELIMINATION_SPINS; ++i) {
+            if (eliminationArray.get(slot) != node) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+        // give up, unless a pop takes the node in the meantime
+        return !eliminationArray.compareAndSet(slot, node, null);
+    }
+
+    // returns the node taken from a slot, or null if there was none
+    private Node<E> tryTake() {
+        int slot = randomSlot();
+        Node<E> node = eliminationArray.get(slot);
+        if (node != null && eliminationArray.compareAndSet(slot, node, null)) {
+            return node;
+        }
+        return null;
+    }
+
+    private int randomSlot() {
+        return ThreadLocalRandom.current().nextInt(eliminationArray.length());
+    }
+}
@@ -1,22 +1,56 @@
 package pt.isel.pc.demos.li51n.synchronizers;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicReference;
 
+/*
+ * Michael and Scott's lock-free queue.
+ * - head points to a dummy node, and the first element is on the node after it.
+ * - tail points to the last node or to the one before it, while an enqueue is in progress (lagging tail).
+ *   Any thread that sees a lagging tail helps the enqueue in progress by advancing it.
+ * - The node's next is a volatile field updated with a VarHandle, instead of an AtomicReference,
+ *   so each element only needs one object.
+ * - Optionally, a thread that fails a CAS waits a random and exponentially growing number of spins before
+ *   retrying, which reduces the contention on head and tail.
+ */
 public class LockFreeQueue<E> {
 
     private static class Node<E> {
-        final E value;
-        final AtomicReference<Node<E>> next = new AtomicReference<>();
+        // cleared when the node becomes the dummy node, so that the queue doesn't retain the element
+        E value;
+        volatile Node<E> next;
 
         Node(E value) {
             this.value = value;
         }
     }
 
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            NEXT = MethodHandles.lookup().findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final int MIN_BACKOFF_SPINS = 1;
+    private static final int MAX_BACKOFF_SPINS = 1024;
+
     private final AtomicReference<Node<E>> tail = new AtomicReference<>();
     private final AtomicReference<Node<E>> head = new AtomicReference<>();
+    private final boolean useBackoff;
 
     public LockFreeQueue() {
+        this(false);
+    }
+
+    public LockFreeQueue(boolean useBackoff) {
+        this.useBackoff = useBackoff;
         Node<E> dummy = new Node<>(null);
         tail.set(dummy);
         head.set(dummy);
@@ -26,22 +60,64 @@ public class LockFreeQueue<E> {
         Node<E> node = new Node<>(value);
         Node<E> observedTail;
         Node<E> observedNext;
+        int backoffLimit = MIN_BACKOFF_SPINS;
         while(true) {
             observedTail = tail.get();
-            observedNext = observedTail.next.get();
+            observedNext = observedTail.next;
             if (observedNext != null) {
                 tail.compareAndSet(observedTail, observedNext);
                 // retry
             } else {
-                if(/*1*/observedTail.next.compareAndSet(null, node)) {
+                if(/*1*/NEXT.compareAndSet(observedTail, null, node)) {
 
                     /*2*/tail.compareAndSet(observedTail, node);
                     return;
                 }
                 // retry
+                backoffLimit = backoff(backoffLimit);
             }
         }
 
     }
 
+    public Optional<E> dequeue() {
+        Node<E> observedHead;
+        Node<E> observedTail;
+        Node<E> observedNext;
+        int backoffLimit = MIN_BACKOFF_SPINS;
+        while (true) {
+            observedHead = head.get();
+            observedTail = tail.get();
+            observedNext = observedHead.next;
+            if (observedHead == observedTail) {
+                if (observedNext == null) {
+                    return Optional.empty();
+                }
+                // the tail is lagging behind, so help the enqueue in progress
+                tail.compareAndSet(observedTail, observedNext);
+                // retry
+            } else {
+                // read the value before the CAS, because after it another thread may clear it
+                E value = observedNext.value;
+                if (head.compareAndSet(observedHead, observedNext)) {
+                    observedNext.value = null;
+                    return Optional.of(value);
+                }
+                // retry
+                backoffLimit = backoff(backoffLimit);
+            }
+        }
+    }
+
+    // waits a random number of spins up to the limit, and returns the next limit
+    private int backoff(int limit) {
+        if (!useBackoff) {
+            return limit;
+        }
+        int spins = ThreadLocalRandom.current().nextInt(limit) + 1;
+        for (int i = 0; i < spins; ++i) {
+            Thread.onSpinWait();
+        }
+        return Math.min(limit * 2, MAX_BACKOFF_SPINS);
+    }
 }
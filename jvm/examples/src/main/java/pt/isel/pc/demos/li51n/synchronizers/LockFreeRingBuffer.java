@@ -0,0 +1,114 @@
+package pt.isel.pc.demos.li51n.synchronizers;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Bounded multi-producer multi-consumer queue, backed by an array, without locks.
+ * Based on Dmitry Vyukov's bounded MPMC queue.
+ * - Each slot has a sequence number: the slot is free for the enqueue at position p when its sequence is p,
+ *   and has the element of position p when its sequence is p + 1.
+ * - A producer (or consumer) reserves a position with a CAS on the enqueue (or dequeue) index, and only then
+ *   writes (or reads) the slot and publishes it by updating the slot's sequence.
+ * - After a dequeue, the slot's sequence becomes p + capacity, i.e., the position of the next round.
+ * So, producers and consumers only contend on their own index and on the slots, and never on the same index.
+ */
+public class LockFreeRingBuffer<E> {
+
+    // Distance between the indices, so that each index is on a different cache line,
+    // including the adjacent line fetched by the spatial prefetcher (2 * 64 bytes)
+    private static final int PADDING = 16;
+    private static final int ENQUEUE_INDEX = PADDING;
+    private static final int DEQUEUE_INDEX = 2 * PADDING;
+
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLongArray indices = new AtomicLongArray(3 * PADDING);
+    private final int mask;
+
+    // the capacity is rounded up to a power of two. With one slot, the sequence of a full slot would be
+    // the same as the sequence of the free slot for the next position, so the minimum is 2.
+    public LockFreeRingBuffer(int capacity) {
+        if (capacity < 2 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 2 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        items = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; ++i) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    // returns false if the queue is full
+    public boolean offer(E value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        long position = indices.get(ENQUEUE_INDEX);
+        while (true) {
+            int slot = (int) (position & mask);
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (indices.compareAndSet(ENQUEUE_INDEX, position, position + 1)) {
+                    items.lazySet(slot, value);
+                    // publishes the element
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = indices.get(ENQUEUE_INDEX);
+            } else if (difference < 0) {
+                // the slot still has the element from the previous round
+                return false;
+            } else {
+                // another producer already took this position
+                position = indices.get(ENQUEUE_INDEX);
+            }
+        }
+    }
+
+    // returns null if the queue is empty
+    public E poll() {
+        long position = indices.get(DEQUEUE_INDEX);
+        while (true) {
+            int slot = (int) (position & mask);
+            long difference = sequences.get(slot) - (position + 1);
+            if (difference == 0) {
+                if (indices.compareAndSet(DEQUEUE_INDEX, position, position + 1)) {
+                    E value = items.get(slot);
+                    items.lazySet(slot, null);
+                    // frees the slot for the next round
+                    sequences.set(slot, position + mask + 1);
+                    return value;
+                }
+                position = indices.get(DEQUEUE_INDEX);
+            } else if (difference < 0) {
+                // the element for this position wasn't published yet
+                return null;
+            } else {
+                // another consumer already took this position
+                position = indices.get(DEQUEUE_INDEX);
+            }
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // approximate, since the indices may change while being read
+    public int size() {
+        long dequeueIndex = indices.get(DEQUEUE_INDEX);
+        long enqueueIndex = indices.get(ENQUEUE_INDEX);
+        return (int) Math.max(Math.min(enqueueIndex - dequeueIndex, capacity()), 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean isFull() {
+        return size() == capacity();
+    }
+}
@@ -1,5 +1,6 @@
 package pt.isel.pc.demos.li51n.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
 import java.util.concurrent.TimeUnit;
@@ -49,14 +50,14 @@ public class ManualResetEvent {
             }
 
             // wait-path
-            long deadline = Timeouts.start(timeoutInMs);
-            long remaining = Timeouts.remaining(deadline);
+            Deadline deadline = Deadline.after(timeoutInMs, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
             while (true) {
-                condition.await(remaining, TimeUnit.MILLISECONDS);
+                condition.awaitNanos(remaining);
                 if (flag) {
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     return false;
                 }
@@ -1,23 +1,60 @@
 package pt.isel.pc.demos.li51n.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.TimerWheel;
 import pt.isel.pc.utils.Timeouts;
+import pt.isel.pc.utils.Waiter;
+import pt.isel.pc.utils.WaiterQueue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class ManualResetEvent2 {
 
-    static class Request {
+    private boolean flag;
+    private final Lock monitor = new ReentrantLock();
+    private final WaiterQueue queue = new WaiterQueue();
+
+    private final TimerWheel timer;
+
+    // a pending waitSetAsync, which is also the future returned to the caller
+    private class AsyncRequest extends CompletableFuture<Boolean> {
+        NodeLinkedList.Node<AsyncRequest> node;
+        // null for infinite timeouts
+        TimerWheel.Timeout timeout;
+        // only accessed while holding the lock
         boolean isDone = false;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                giveUp(this);
+            }
+            return cancelled;
+        }
+
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new CompletableFuture<>();
+        }
     }
 
-    private boolean flag;
-    private final Lock monitor = new ReentrantLock();
-    private final Condition condition = monitor.newCondition();
-    private final NodeLinkedList<Request> queue = new NodeLinkedList<>();
+    private final NodeLinkedList<AsyncRequest> asyncQueue = new NodeLinkedList<>();
+
+    public ManualResetEvent2() {
+        this(TimerWheel.getDefault());
+    }
+
+    // the timer is used for the waitSetAsync timeouts
+    public ManualResetEvent2(TimerWheel timer) {
+        this.timer = timer;
+    }
 
     // sets the flag to false
     public void reset() {
@@ -32,17 +69,33 @@ public class ManualResetEvent2 {
     // sets the flat to true
     // and ensures all threads waiting on waitSet do return from this method
     public void set() {
+        List<AsyncRequest> requestsToComplete = null;
         monitor.lock();
         try {
             flag = true;
-            condition.signalAll();
             while (queue.isNotEmpty()) {
-                NodeLinkedList.Node<Request> node = queue.pull();
-                node.value.isDone = true;
+                Waiter waiter = queue.pull();
+                waiter.isDone = true;
+                waiter.signal();
+            }
+            if (asyncQueue.isNotEmpty()) {
+                requestsToComplete = new ArrayList<>(asyncQueue.getCount());
+                while (asyncQueue.isNotEmpty()) {
+                    AsyncRequest request = asyncQueue.pull().value;
+                    request.isDone = true;
+                    requestsToComplete.add(request);
+                }
             }
         } finally {
             monitor.unlock();
         }
+        // the futures are completed outside the lock, so their continuations run without holding it
+        if (requestsToComplete != null) {
+            for (AsyncRequest request : requestsToComplete) {
+                cancelTimeout(request);
+                request.complete(true);
+            }
+        }
     }
 
     // waits until the flag is true
@@ -59,22 +112,22 @@ public class ManualResetEvent2 {
             }
 
             // wait-path
-            long deadline = Timeouts.start(timeoutInMs);
-            long remaining = Timeouts.remaining(deadline);
-            NodeLinkedList.Node<Request> node = queue.enqueue(new Request());
+            Deadline deadline = Deadline.after(timeoutInMs, TimeUnit.MILLISECONDS);
+            long remaining = deadline.remainingNanos();
+            Waiter node = queue.enqueue(Waiter.prepare());
             while (true) {
                 try {
-                    condition.await(remaining, TimeUnit.MILLISECONDS);
+                    node.awaitNanos(monitor, remaining);
                 } catch (InterruptedException e) {
-                    if(!node.value.isDone) {
+                    if(!node.isDone) {
                         queue.remove(node);
                     }
                     throw e;
                 }
-                if (node.value.isDone) {
+                if (node.isDone) {
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     queue.remove(node);
                     return false;
@@ -85,6 +138,57 @@ public class ManualResetEvent2 {
             monitor.unlock();
         }
     }
+
+    // returns a future that completes with true when the flag is true, or with false on timeout
+    public CompletableFuture<Boolean> waitSetAsync(long timeoutInMs) {
+        monitor.lock();
+        try {
+            // fast-path
+            if (flag) {
+                return CompletableFuture.completedFuture(true);
+            }
+
+            if (Timeouts.noWait(timeoutInMs)) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            // async-path
+            AsyncRequest request = new AsyncRequest();
+            request.node = asyncQueue.enqueue(request);
+            if (!Deadline.isInfinite(timeoutInMs, TimeUnit.MILLISECONDS)) {
+                request.timeout = timer.schedule(() -> {
+                    if (giveUp(request)) {
+                        request.complete(false);
+                    }
+                }, timeoutInMs, TimeUnit.MILLISECONDS);
+            }
+            return request;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    // removes a request that timed out or was cancelled, if it is still queued
+    private boolean giveUp(AsyncRequest request) {
+        monitor.lock();
+        try {
+            if (request.isDone) {
+                return false;
+            }
+            asyncQueue.remove(request.node);
+            request.isDone = true;
+        } finally {
+            monitor.unlock();
+        }
+        cancelTimeout(request);
+        return true;
+    }
+
+    private static void cancelTimeout(AsyncRequest request) {
+        if (request.timeout != null) {
+            request.timeout.cancel();
+        }
+    }
 }
 
 /*
@@ -0,0 +1,48 @@
+package pt.isel.pc.demos.li51n.synchronizers;
+
+import pt.isel.pc.utils.AtomicIntPair;
+
+/*
+ * Range with both values packed on a single long, using AtomicIntPair, so neither the reads nor the writes
+ * allocate. Only snapshot() allocates its result.
+ */
+public class PackedRange {
+
+    // invariant: min <= max
+    private final AtomicIntPair state;
+
+    public PackedRange(int min, int max) {
+        state = new AtomicIntPair(min, max, (first, second) -> first <= second);
+    }
+
+    public void setMin(int newMin) {
+        state.updateAndGet((min, max) -> AtomicIntPair.pack(newMin, max));
+    }
+
+    public void setMax(int newMax) {
+        state.updateAndGet((min, max) -> AtomicIntPair.pack(min, newMax));
+    }
+
+    // changes both values, independently of the current ones
+    public void set(int newMin, int newMax) {
+        state.set(newMin, newMax);
+    }
+
+    public Range.Snapshot snapshot() {
+        long observed = state.get();
+        return new Range.Snapshot(AtomicIntPair.first(observed), AtomicIntPair.second(observed));
+    }
+
+    public int getMin() {
+        return AtomicIntPair.first(state.get());
+    }
+
+    public int getMax() {
+        return AtomicIntPair.second(state.get());
+    }
+
+    public boolean contains(int value) {
+        long observed = state.get();
+        return value >= AtomicIntPair.first(observed) && value <= AtomicIntPair.second(observed);
+    }
+}
@@ -0,0 +1,192 @@
+package pt.isel.pc.demos.li51n.synchronizers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * LockFreeStack that doesn't allocate on steady state:
+ * - pop returns the element, or null if the stack is empty, instead of an Optional;
+ * - the nodes are reused: a popped node goes to a free list, from where the next push takes it.
+ * Reusing nodes brings back the ABA problem: between reading head (A) and its next (B) and the CAS,
+ * A and B may be popped and A pushed again, and the CAS would make the popped B the new head.
+ * So, the nodes are identified by an index, and head is a single long with the index on the low 32 bits
+ * and a stamp on the high 32 bits, incremented on every change. A CAS with a stale stamp fails
+ * (unless the stamp wrapped around, after 2^32 changes, while the thread was between the read and the CAS).
+ * The free list is also a stamped stack, using the same next links.
+ * The nodes are stored in chunks of increasing size, created when needed and never released.
+ * The node fields are plain: they are only written while the node is owned by a single thread, before being
+ * published by a CAS on head. A thread may read a stale value from a node reused in the meantime,
+ * but then the stamp has changed and its CAS fails.
+ */
+public class PooledLockFreeStack<E> {
+
+    private static final int NONE = -1;
+    // a next index read from a chunk not yet visible, which can only happen on a stale read
+    private static final int STALE = -2;
+    private static final int FIRST_CHUNK_SIZE = 64;
+    private static final int MAX_CHUNKS = 24;
+
+    private static final class Chunk {
+        final Object[] values;
+        final int[] next;
+
+        Chunk(int size) {
+            values = new Object[size];
+            next = new int[size];
+        }
+    }
+
+    private final AtomicLong head = new AtomicLong(pack(0, NONE));
+    private final AtomicLong freeHead = new AtomicLong(pack(0, NONE));
+    private final AtomicInteger allocatedNodes = new AtomicInteger();
+    private final AtomicReferenceArray<Chunk> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+
+    public void push(E value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        int node = allocateNode();
+        Chunk chunk = chunks.get(chunkOf(node));
+        chunk.values[offsetOf(node)] = value;
+        pushChain(head, node, node);
+    }
+
+    // returns null if the stack is empty
+    public E pop() {
+        int node = popOne(head);
+        if (node == NONE) {
+            return null;
+        }
+        Chunk chunk = chunks.get(chunkOf(node));
+        int offset = offsetOf(node);
+        @SuppressWarnings("unchecked")
+        E value = (E) chunk.values[offset];
+        chunk.values[offset] = null;
+        pushChain(freeHead, node, node);
+        return value;
+    }
+
+    /*
+     * Pops up to length elements with a single CAS, into destination starting at offset,
+     * from the top of the stack, and returns the number of popped elements.
+     */
+    public int popInto(E[] destination, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > destination.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (length == 0) {
+            return 0;
+        }
+        while (true) {
+            long observedHead = head.get();
+            int first = indexOf(observedHead);
+            if (first == NONE) {
+                return 0;
+            }
+            // walk the chain, which is only valid if the CAS succeeds
+            int last = first;
+            int count = 1;
+            int newHead = nextOf(last);
+            while (count < length && newHead >= 0) {
+                last = newHead;
+                count += 1;
+                newHead = nextOf(last);
+            }
+            if (newHead == STALE) {
+                continue;
+            }
+            if (head.compareAndSet(observedHead, pack(stampOf(observedHead) + 1, newHead))) {
+                // the chain from first to last is now owned by this thread
+                int node = first;
+                for (int i = 0; i < count; ++i) {
+                    Chunk chunk = chunks.get(chunkOf(node));
+                    int nodeOffset = offsetOf(node);
+                    @SuppressWarnings("unchecked")
+                    E value = (E) chunk.values[nodeOffset];
+                    destination[offset + i] = value;
+                    chunk.values[nodeOffset] = null;
+                    node = chunk.next[nodeOffset];
+                }
+                pushChain(freeHead, first, last);
+                return count;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return indexOf(head.get()) == NONE;
+    }
+
+    private int nextOf(int node) {
+        Chunk chunk = chunks.get(chunkOf(node));
+        return chunk == null ? STALE : chunk.next[offsetOf(node)];
+    }
+
+    // pushes the chain first..last, already linked, on top of the stack
+    private void pushChain(AtomicLong top, int first, int last) {
+        Chunk lastChunk = chunks.get(chunkOf(last));
+        int lastOffset = offsetOf(last);
+        long observed;
+        do {
+            observed = top.get();
+            lastChunk.next[lastOffset] = indexOf(observed);
+        } while (!top.compareAndSet(observed, pack(stampOf(observed) + 1, first)));
+    }
+
+    // returns the popped node index, or NONE
+    private int popOne(AtomicLong top) {
+        while (true) {
+            long observed = top.get();
+            int node = indexOf(observed);
+            if (node == NONE) {
+                return NONE;
+            }
+            int next = nextOf(node);
+            if (next == STALE) {
+                continue;
+            }
+            if (top.compareAndSet(observed, pack(stampOf(observed) + 1, next))) {
+                return node;
+            }
+        }
+    }
+
+    private int allocateNode() {
+        int node = popOne(freeHead);
+        if (node != NONE) {
+            return node;
+        }
+        node = allocatedNodes.getAndIncrement();
+        int chunk = chunkOf(node);
+        if (chunk >= MAX_CHUNKS) {
+            allocatedNodes.getAndDecrement();
+            throw new IllegalStateException("stack is full");
+        }
+        if (chunks.get(chunk) == null) {
+            chunks.compareAndSet(chunk, null, new Chunk(FIRST_CHUNK_SIZE << chunk));
+        }
+        return node;
+    }
+
+    // chunk k has FIRST_CHUNK_SIZE * 2^k nodes, starting on index FIRST_CHUNK_SIZE * (2^k - 1)
+    private static int chunkOf(int node) {
+        return 31 - Integer.numberOfLeadingZeros(node / FIRST_CHUNK_SIZE + 1);
+    }
+
+    private static int offsetOf(int node) {
+        return node - FIRST_CHUNK_SIZE * ((1 << chunkOf(node)) - 1);
+    }
+
+    private static long pack(int stamp, int index) {
+        return ((long) stamp << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    private static int stampOf(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int indexOf(long packed) {
+        return (int) packed;
+    }
+}
@@ -1,46 +1,111 @@
 package pt.isel.pc.demos.li51n.synchronizers;
 
-import java.util.concurrent.atomic.AtomicReference;
+import pt.isel.pc.utils.AtomicState;
 
+/*
+ * Lock-free holder of two values with an invariant between them (min <= max).
+ * Both values are on an immutable (once published) Snapshot, replaced with a CAS by AtomicState, so the
+ * invariant is checked against the values the CAS replaces.
+ * The setters use AtomicState.compareAndSet instead of updateAndGet, so that they allocate one snapshot
+ * per call and change it on the retries, while it isn't published yet.
+ * A reader gets both values from the same snapshot, without allocating.
+ * See PackedRange for a version where the writers don't allocate either,
+ * and SeqLockRange for one using a sequence lock.
+ */
 public class Range {
 
     public static Range GLOBAL;
 
-    static class Holder {
-        int max;
-        int min;
+    public static final class Snapshot {
+        // only changed before being published by the CAS
+        private int min;
+        private int max;
+
+        Snapshot(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        public int getMin() {
+            return min;
+        }
+
+        public int getMax() {
+            return max;
+        }
+
+        public boolean contains(int value) {
+            return value >= min && value <= max;
+        }
+
+        // invariant: min <= max
+        boolean isValid() {
+            return min <= max;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + min + ", " + max + "]";
+        }
     }
 
-    private final AtomicReference<Holder> holder;
+    private final AtomicState<Snapshot> state;
 
     public Range(int min, int max) {
-        if (min > max) {
-            throw new IllegalArgumentException("TODO");
-        }
-        Holder firstHolder = new Holder();
-        firstHolder.max = max;
-        firstHolder.min = min;
-        holder = new AtomicReference<>(firstHolder);
+        state = new AtomicState<>(new Snapshot(min, max), Snapshot::isValid);
     }
 
-    // invariant: min <= max
+    // the new snapshot is only allocated once, and reused on the CAS retries
+    public void setMin(int newMin) {
+        Snapshot observed;
+        Snapshot newSnapshot = null;
+        do {
+            observed = state.get();
+            if (observed.min == newMin) {
+                return;
+            }
+            if (newSnapshot == null) {
+                newSnapshot = new Snapshot(newMin, observed.max);
+            } else {
+                newSnapshot.max = observed.max;
+            }
+        } while (!state.compareAndSet(observed, newSnapshot));
+    }
 
-    // no synchronizes-with
-    void setMin(int newMin) {
-        Holder observedHolder;
-        Holder newHolder = new Holder();
-        newHolder.min = newMin;
+    public void setMax(int newMax) {
+        Snapshot observed;
+        Snapshot newSnapshot = null;
         do {
-            observedHolder = holder.get();
-            int observedMax = observedHolder.max;
-            if (newMin > observedMax) {
-                throw new IllegalArgumentException("TODO");
+            observed = state.get();
+            if (observed.max == newMax) {
+                return;
+            }
+            if (newSnapshot == null) {
+                newSnapshot = new Snapshot(observed.min, newMax);
+            } else {
+                newSnapshot.min = observed.min;
             }
-            newHolder.max = observedMax;
-        } while (!holder.compareAndSet(observedHolder, newHolder));
+        } while (!state.compareAndSet(observed, newSnapshot));
+    }
+
+    // changes both values, independently of the current ones
+    public void set(int newMin, int newMax) {
+        state.set(new Snapshot(newMin, newMax));
+    }
+
+    public Snapshot snapshot() {
+        return state.get();
     }
 
-    void setMax(int newMax) {
+    public int getMin() {
+        return state.get().min;
+    }
+
+    public int getMax() {
+        return state.get().max;
+    }
 
+    public boolean contains(int value) {
+        return state.get().contains(value);
     }
 }
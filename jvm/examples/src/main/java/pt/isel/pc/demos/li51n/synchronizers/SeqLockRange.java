@@ -0,0 +1,147 @@
+package pt.isel.pc.demos.li51n.synchronizers;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/*
+ * Range using a sequence lock (seqlock), as in the Linux kernel or java.util.concurrent.locks.StampedLock.
+ * - The sequence is even while there is no writer. A writer makes it odd with a CAS, changes the values
+ *   and makes it even again, so the writers are mutually exclusive (and spin while another one is writing).
+ * - A reader reads the sequence, the values and the sequence again, and retries if it was odd or changed.
+ *   So, the reads never allocate nor write to shared memory, i.e., the readers don't invalidate each
+ *   other's cache lines, and the writers don't allocate either.
+ * - The reader may see inconsistent values before retrying, so it must not act on them before the validation.
+ * - A writer preempted while the sequence is odd makes the readers spin, so the writes must be short.
+ */
+public class SeqLockRange {
+
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(SeqLockRange.class, "sequence", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile int sequence = 0;
+    // only written while holding the write lock, i.e., while the sequence is odd
+    private int min;
+    private int max;
+
+    public SeqLockRange(int min, int max) {
+        checkInvariant(min, max);
+        this.min = min;
+        this.max = max;
+    }
+
+    public void setMin(int newMin) {
+        int observedSequence = lockForWrite();
+        try {
+            checkInvariant(newMin, max);
+            min = newMin;
+        } finally {
+            unlockForWrite(observedSequence);
+        }
+    }
+
+    public void setMax(int newMax) {
+        int observedSequence = lockForWrite();
+        try {
+            checkInvariant(min, newMax);
+            max = newMax;
+        } finally {
+            unlockForWrite(observedSequence);
+        }
+    }
+
+    public void set(int newMin, int newMax) {
+        checkInvariant(newMin, newMax);
+        int observedSequence = lockForWrite();
+        try {
+            min = newMin;
+            max = newMax;
+        } finally {
+            unlockForWrite(observedSequence);
+        }
+    }
+
+    public int getMin() {
+        while (true) {
+            int observedSequence = beginRead();
+            int observedMin = min;
+            if (validateRead(observedSequence)) {
+                return observedMin;
+            }
+        }
+    }
+
+    public int getMax() {
+        while (true) {
+            int observedSequence = beginRead();
+            int observedMax = max;
+            if (validateRead(observedSequence)) {
+                return observedMax;
+            }
+        }
+    }
+
+    public boolean contains(int value) {
+        while (true) {
+            int observedSequence = beginRead();
+            int observedMin = min;
+            int observedMax = max;
+            if (validateRead(observedSequence)) {
+                return value >= observedMin && value <= observedMax;
+            }
+        }
+    }
+
+    // a snapshot with both values, which is the only read that allocates
+    public Range.Snapshot snapshot() {
+        while (true) {
+            int observedSequence = beginRead();
+            int observedMin = min;
+            int observedMax = max;
+            if (validateRead(observedSequence)) {
+                return new Range.Snapshot(observedMin, observedMax);
+            }
+        }
+    }
+
+    // waits until there is no writer, and returns the (even) sequence
+    private int beginRead() {
+        int observedSequence;
+        while (((observedSequence = sequence) & 1) != 0) {
+            Thread.onSpinWait();
+        }
+        return observedSequence;
+    }
+
+    private boolean validateRead(int observedSequence) {
+        // the reads of the values must not be reordered after the second read of the sequence
+        VarHandle.acquireFence();
+        return sequence == observedSequence;
+    }
+
+    // returns the (even) sequence before the write
+    private int lockForWrite() {
+        while (true) {
+            int observedSequence = beginRead();
+            if (SEQUENCE.compareAndSet(this, observedSequence, observedSequence + 1)) {
+                return observedSequence;
+            }
+        }
+    }
+
+    private void unlockForWrite(int observedSequence) {
+        sequence = observedSequence + 2;
+    }
+
+    private static void checkInvariant(int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException("min (" + min + ") must not be greater than max (" + max + ")");
+        }
+    }
+}
@@ -1,32 +1,259 @@
 package pt.isel.pc.demos.li51n.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.Timeouts;
+import pt.isel.pc.utils.Waiter;
+import pt.isel.pc.utils.WaiterQueue;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
-public final class SimpleThreadPool {
+/*
+ * Workers are created on demand, up to a limit (maxWorkers, unless adaptive), and the work is queued only when
+ * all of them are busy.
+ * A worker without work stays idle, waiting for work during the keep-alive time, so that bursts of work
+ * don't create a new thread per runnable. The first coreWorkers workers stay idle without a time limit.
+ * The work is given directly to an idle worker, on Waiter.item, kernel-style.
+ * After shutdown, no more work is accepted, the queued work is still run and the idle workers end.
+ * The queue may be bounded, with a RejectionPolicy for the work that doesn't fit. With BLOCK, the submitters
+ * wait kernel-style on the submitters queue, and a worker moves their work to the queue when it takes work.
+ * Invariant: there are waiting submitters only if the queue is full (or the capacity is 0) and all the
+ * workers are busy.
+ * The futures returned by submit use the pool as their default executor, so the async continuations
+ * without an explicit executor (e.g. thenApplyAsync(fn)) also run on the pool. Those continuations are executed
+ * by the workers, so, with BLOCK, a worker never waits for space on the queue, since only the workers drain it:
+ * it runs the work itself, as with CALLER_RUNS.
+ * With a sample interval, the limit of running workers (workerLimit) adapts to the workload by hill-climbing,
+ * between max(coreWorkers, 1) and maxWorkers, based on the throughput of completed work on each interval:
+ * - When stable for STABLE_SAMPLES intervals, it probes one step, alternating up and down, and compares the
+ *   next interval's throughput with the reference, i.e., the average throughput while stable, so that a single
+ *   noisy interval doesn't move the limit.
+ * - An increase is kept only if it improves the throughput by more than NOISE, and a decrease only if it
+ *   doesn't reduce it by more than NOISE, in which case the next step is on the same direction.
+ *   Otherwise, the step is undone. So, it prefers fewer workers for the same throughput.
+ * - It never increases without queued work, since more workers can't help.
+ * There is no sampling thread: the worker that completes work after the interval elapsed does the sample.
+ */
+public final class SimpleThreadPool implements Executor {
+
+    // what execute(Runnable) does when the work can't run now and the queue is full
+    public enum RejectionPolicy {
+        // waits for space on the queue
+        BLOCK,
+        // throws RejectedExecutionException
+        REJECT,
+        // runs the work on the calling thread
+        CALLER_RUNS,
+        // discards the oldest queued work, to make space for the new one
+        DROP_OLDEST
+    }
+
+    private final class Worker extends Thread {
+        private final Runnable firstRunnable;
+
+        Worker(Runnable firstRunnable) {
+            this.firstRunnable = firstRunnable;
+        }
+
+        @Override
+        public void run() {
+            threadMethod(firstRunnable);
+        }
+
+        SimpleThreadPool pool() {
+            return SimpleThreadPool.this;
+        }
+    }
+
+    /*
+     * Future that uses the pool as its default executor, including on the dependent futures.
+     */
+    private static class PoolFuture<T> extends CompletableFuture<T> {
+        final SimpleThreadPool pool;
+
+        PoolFuture(SimpleThreadPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public Executor defaultExecutor() {
+            return pool;
+        }
+
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new PoolFuture<>(pool);
+        }
+    }
+
+    /*
+     * The work queued by submit. Cancelling it before it runs means it never runs, but cancelling
+     * it while running doesn't interrupt it, as with any CompletableFuture.
+     */
+    private static final class TaskFuture<T> extends PoolFuture<T> implements Runnable {
+        private final Callable<T> callable;
+
+        TaskFuture(SimpleThreadPool pool, Callable<T> callable) {
+            super(pool);
+            this.callable = callable;
+        }
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return;
+            }
+            try {
+                complete(callable.call());
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            }
+        }
+    }
+
+    // relative throughput change below which it is considered noise
+    private static final double NOISE = 0.05;
+    // intervals without changes before probing
+    private static final int STABLE_SAMPLES = 3;
 
     private final Lock monitor = new ReentrantLock();
     private final NodeLinkedList<Runnable> queue = new NodeLinkedList<>();
+    // workers waiting for work, which receive it on Waiter.item, or null if the pool was shut down
+    private final WaiterQueue idleWorkers = new WaiterQueue();
+    // submitters waiting for space on the queue, with the work on Waiter.item, which is null if rejected
+    private final WaiterQueue submitters = new WaiterQueue();
+    private final WaiterQueue terminationWaiters = new WaiterQueue();
+    private final Set<Thread> workers = new HashSet<>();
     private int runningWorkers = 0;
+    private boolean isShutdown = false;
+
+    private final int coreWorkers;
     private final int maxWorkers;
+    private final long keepAliveNanos;
+    private final int queueCapacity;
+    private final RejectionPolicy policy;
 
+    // the limit of running workers, which is maxWorkers unless adaptive
+    private int workerLimit;
+    private final int minWorkerLimit;
+    // zero if not adaptive
+    private final long sampleIntervalNanos;
+    private final LongAdder completedCount = new LongAdder();
+    private final AtomicLong nextSampleNanos = new AtomicLong();
+    // the hill-climbing state, guarded by the lock
+    private long lastSampleNanos;
+    private long lastCompletedCount;
+    private double referenceThroughput = -1;
+    // the step being evaluated, or 0 if stable
+    private int step = 0;
+    private int stableSamples = 0;
+    private double stableThroughputSum = 0;
+    private int nextProbe = 1;
+
+    // workers end as soon as there is no work
     public SimpleThreadPool(int maxWorkers) {
+        this(0, maxWorkers, 0, TimeUnit.NANOSECONDS);
+    }
+
+    // unbounded queue
+    public SimpleThreadPool(int coreWorkers, int maxWorkers, long keepAlive, TimeUnit timeUnit) {
+        this(coreWorkers, maxWorkers, keepAlive, timeUnit, Integer.MAX_VALUE, RejectionPolicy.REJECT);
+    }
+
+    // not adaptive
+    public SimpleThreadPool(int coreWorkers, int maxWorkers, long keepAlive, TimeUnit timeUnit,
+                            int queueCapacity, RejectionPolicy policy) {
+        this(coreWorkers, maxWorkers, keepAlive, timeUnit, queueCapacity, policy, Duration.ZERO);
+    }
+
+    /**
+     * @param sampleInterval the interval between throughput samples to adapt the number of workers,
+     *                       or zero to always allow up to {@code maxWorkers} workers.
+     */
+    public SimpleThreadPool(int coreWorkers, int maxWorkers, long keepAlive, TimeUnit timeUnit,
+                            int queueCapacity, RejectionPolicy policy, Duration sampleInterval) {
+        if (maxWorkers <= 0 || coreWorkers < 0 || coreWorkers > maxWorkers) {
+            throw new IllegalArgumentException("must have 0 <= coreWorkers <= maxWorkers and 0 < maxWorkers");
+        }
+        if (keepAlive < 0) {
+            throw new IllegalArgumentException("keepAlive must not be negative");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity must not be negative");
+        }
+        this.coreWorkers = coreWorkers;
         this.maxWorkers = maxWorkers;
+        this.keepAliveNanos = timeUnit.toNanos(keepAlive);
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+        this.sampleIntervalNanos = sampleInterval.toNanos();
+        if (sampleIntervalNanos < 0) {
+            throw new IllegalArgumentException("sampleInterval must not be negative");
+        }
+        this.minWorkerLimit = Math.max(coreWorkers, 1);
+        // an adaptive pool starts with the minimum and climbs
+        this.workerLimit = sampleIntervalNanos == 0 ? maxWorkers : minWorkerLimit;
+        this.lastSampleNanos = System.nanoTime();
+        this.nextSampleNanos.set(lastSampleNanos + sampleIntervalNanos);
     }
 
+    /**
+     * Executes the work on an idle worker, on a new worker or queues it. If none is possible, applies the
+     * rejection policy, where BLOCK waits without a time limit, except when called by one of the pool's
+     * workers, which runs the work itself, as with CALLER_RUNS.
+     *
+     * @throws RejectedExecutionException if the pool is shut down, the policy is REJECT, or, with DROP_OLDEST,
+     *                                    there is no queued work to discard, or, with BLOCK, if interrupted while
+     *                                    waiting, keeping the interrupt status.
+     */
     public void execute(Runnable runnable) {
+        if (policy == RejectionPolicy.BLOCK && !isWorkerThread()) {
+            try {
+                execute(runnable, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("interrupted while waiting for space on the queue", e);
+            }
+        }
         monitor.lock();
         try {
             assertInvariant();
-            if (runningWorkers < maxWorkers) {
-                new Thread(() -> threadMethod(runnable)).start();
-                runningWorkers += 1;
+            if (isShutdown) {
+                throw new RejectedExecutionException("pool is shut down");
+            }
+            if (tryDispatch(runnable)) {
                 return;
             }
-            queue.enqueue(runnable);
+            if (policy == RejectionPolicy.DROP_OLDEST && queue.isNotEmpty()) {
+                Runnable dropped = queue.pull().value;
+                queue.enqueue(runnable);
+                // a future that will never run must not stay incomplete
+                if (dropped instanceof TaskFuture) {
+                    ((TaskFuture<?>) dropped).cancel(false);
+                }
+                return;
+            }
+            if (policy != RejectionPolicy.CALLER_RUNS && policy != RejectionPolicy.BLOCK) {
+                throw new RejectedExecutionException("queue is full");
+            }
         } finally {
             try {
                 assertInvariant();
@@ -34,6 +261,269 @@ public final class SimpleThreadPool {
                 monitor.unlock();
             }
         }
+        // CALLER_RUNS, or BLOCK on a worker, outside the lock
+        runnable.run();
+    }
+
+    /*
+     * Executes the work as execute(Runnable), except that BLOCK only waits until the deadline.
+     * Returns false on timeout.
+     */
+    private boolean execute(Runnable runnable, Deadline deadline) throws InterruptedException {
+        if (policy != RejectionPolicy.BLOCK || isWorkerThread()) {
+            execute(runnable);
+            return true;
+        }
+        return execute(runnable, deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private boolean isWorkerThread() {
+        Thread current = Thread.currentThread();
+        return current instanceof Worker && ((Worker) current).pool() == this;
+    }
+
+    /**
+     * Executes the work as {@link #execute(Runnable)}, but waits for space on the queue if it is full,
+     * independently of the rejection policy.
+     *
+     * @return {@code true} if the work was accepted, {@code false} on timeout.
+     * @throws RejectedExecutionException if the pool is shut down, including while waiting.
+     */
+    public boolean execute(Runnable runnable, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        monitor.lock();
+        try {
+            assertInvariant();
+            if (isShutdown) {
+                throw new RejectedExecutionException("pool is shut down");
+            }
+            // fast path
+            if (tryDispatch(runnable)) {
+                return true;
+            }
+            // wait path
+            if (Timeouts.noWait(timeout)) {
+                return false;
+            }
+
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
+            Waiter node = Waiter.prepare();
+            node.item = runnable;
+            submitters.enqueue(node);
+            while (true) {
+                try {
+                    node.awaitNanos(monitor, remaining);
+                } catch (InterruptedException e) {
+                    if (node.isDone) {
+                        Thread.currentThread().interrupt();
+                        return isAccepted(node);
+                    }
+                    submitters.remove(node);
+                    throw e;
+                }
+                // evaluate success condition
+                if (node.isDone) {
+                    return isAccepted(node);
+                }
+                remaining = deadline.remainingNanos();
+                if (Timeouts.isTimeout(remaining)) {
+                    submitters.remove(node);
+                    return false;
+                }
+            }
+        } finally {
+            try {
+                assertInvariant();
+            }finally {
+                monitor.unlock();
+            }
+        }
+    }
+
+    /**
+     * Executes the callable, as {@link #execute(Runnable)}, returning a future for its result.
+     * The dependent futures created with the async methods without an explicit executor also run on the pool.
+     *
+     * @throws RejectedExecutionException as {@link #execute(Runnable)}.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> callable) {
+        TaskFuture<T> future = new TaskFuture<>(this, callable);
+        execute(future);
+        return future;
+    }
+
+    /**
+     * Executes all the callables and waits until all of them complete or the timeout expires,
+     * cancelling the ones not yet completed. With BLOCK, the wait for space on the queue also ends on timeout.
+     *
+     * @return the futures, on the callables' order, all of them completed.
+     * @throws InterruptedException if interrupted while waiting, after cancelling all the futures.
+     */
+    public <T> List<CompletableFuture<T>> invokeAll(Collection<? extends Callable<T>> callables,
+                                                    long timeout, TimeUnit timeUnit) throws InterruptedException {
+        Deadline deadline = Deadline.after(timeout, timeUnit);
+        List<CompletableFuture<T>> futures = new ArrayList<>(callables.size());
+        for (Callable<T> callable : callables) {
+            futures.add(new TaskFuture<>(this, callable));
+        }
+        try {
+            for (CompletableFuture<T> future : futures) {
+                if (!execute((Runnable) future, deadline)) {
+                    // the ones not executed are cancelled below
+                    return futures;
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // the failures are on the futures, and the ones not completed are cancelled below
+        } finally {
+            cancelAll(futures);
+        }
+        return futures;
+    }
+
+    /**
+     * Executes all the callables and returns the result of the first one to complete successfully,
+     * cancelling the others.
+     *
+     * @throws ExecutionException   if all of them failed, with the last failure.
+     * @throws TimeoutException     if none completed successfully before the timeout, including while waiting
+     *                              for space on the queue, with BLOCK.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public <T> T invokeAny(Collection<? extends Callable<T>> callables, long timeout, TimeUnit timeUnit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        if (callables.isEmpty()) {
+            throw new IllegalArgumentException("callables must not be empty");
+        }
+        Deadline deadline = Deadline.after(timeout, timeUnit);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pendingFailures = new AtomicInteger(callables.size());
+        List<CompletableFuture<T>> futures = new ArrayList<>(callables.size());
+        try {
+            for (Callable<T> callable : callables) {
+                TaskFuture<T> future = new TaskFuture<>(this, callable);
+                futures.add(future);
+                if (!execute(future, deadline)) {
+                    throw new TimeoutException();
+                }
+                future.whenComplete((value, error) -> {
+                    if (error == null) {
+                        result.complete(value);
+                    } else if (pendingFailures.decrementAndGet() == 0) {
+                        result.completeExceptionally(error);
+                    }
+                });
+            }
+            return result.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+        } finally {
+            cancelAll(futures);
+        }
+    }
+
+    private static <T> void cancelAll(List<CompletableFuture<T>> futures) {
+        for (CompletableFuture<T> future : futures) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Stops accepting work. The already accepted work is still run.
+     */
+    public void shutdown() {
+        monitor.lock();
+        try {
+            startShutdown();
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting work and interrupts the workers.
+     *
+     * @return the accepted work that didn't start running, which will not be run.
+     */
+    public List<Runnable> shutdownNow() {
+        monitor.lock();
+        try {
+            startShutdown();
+            List<Runnable> pending = new ArrayList<>();
+            while (queue.isNotEmpty()) {
+                pending.add(queue.pull().value);
+            }
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+            return pending;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * Waits until the pool is shut down and all the workers ended.
+     *
+     * @return {@code true} if terminated, {@code false} on timeout.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        monitor.lock();
+        try {
+            // fast path
+            if (isTerminated()) {
+                return true;
+            }
+            // wait path
+            if (Timeouts.noWait(timeout)) {
+                return false;
+            }
+
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
+            Waiter node = terminationWaiters.enqueue(Waiter.prepare());
+            while (true) {
+                try {
+                    node.awaitNanos(monitor, remaining);
+                } catch (InterruptedException e) {
+                    if (node.isDone) {
+                        Thread.currentThread().interrupt();
+                        return true;
+                    }
+                    terminationWaiters.remove(node);
+                    throw e;
+                }
+                // evaluate success condition
+                if (node.isDone) {
+                    return true;
+                }
+                remaining = deadline.remainingNanos();
+                if (Timeouts.isTimeout(remaining)) {
+                    terminationWaiters.remove(node);
+                    return false;
+                }
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    public boolean isShutdown() {
+        monitor.lock();
+        try {
+            return isShutdown;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    public boolean isTerminated() {
+        monitor.lock();
+        try {
+            return isShutdown && runningWorkers == 0;
+        } finally {
+            monitor.unlock();
+        }
     }
 
     public int getRunningWorkers() {
@@ -45,26 +535,106 @@ public final class SimpleThreadPool {
         }
     }
 
+    /**
+     * Returns the number of queued works, including the ones of the submitters waiting for space,
+     * which callers can use to shed load before the queue is full.
+     */
+    public int getQueueSize() {
+        monitor.lock();
+        try {
+            return queue.getCount() + submitters.getCount();
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getWorkerLimit() {
+        monitor.lock();
+        try {
+            return workerLimit;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    public int getIdleWorkers() {
+        monitor.lock();
+        try {
+            return idleWorkers.getCount();
+        } finally {
+            monitor.unlock();
+        }
+    }
+
     private void threadMethod(Runnable runnable) {
-        runnable.run();
-        while (true) {
-            Optional<Runnable> maybeRunnable = getWork();
-            maybeRunnable.ifPresent(Runnable::run);
-            if (maybeRunnable.isEmpty()) {
-                return;
+        boolean completedAbruptly = true;
+        try {
+            while (runnable != null) {
+                runnable.run();
+                if (sampleIntervalNanos != 0) {
+                    onCompleted();
+                }
+                runnable = getWork();
+            }
+            completedAbruptly = false;
+        } finally {
+            if (completedAbruptly) {
+                replaceWorker();
             }
         }
     }
 
-    private Optional<Runnable> getWork() {
+    // returns null when the worker must end, after removing it from the running workers
+    private Runnable getWork() {
+        // an interrupt from shutdownNow was meant for the previous runnable
+        Thread.interrupted();
         monitor.lock();
         try {
             assertInvariant();
-            if (queue.isNotEmpty()) {
-                return Optional.of(queue.pull().value);
-            } else {
-                runningWorkers -= 1;
-                return Optional.empty();
+            Deadline deadline = null;
+            while (true) {
+                // the limit was reduced
+                if (runningWorkers > workerLimit) {
+                    removeWorker();
+                    return null;
+                }
+                Runnable queued = takeQueued();
+                if (queued != null) {
+                    return queued;
+                }
+                if (isShutdown) {
+                    removeWorker();
+                    return null;
+                }
+                long remaining = Long.MAX_VALUE;
+                if (runningWorkers > coreWorkers) {
+                    if (deadline == null) {
+                        deadline = Deadline.after(keepAliveNanos, TimeUnit.NANOSECONDS);
+                    }
+                    remaining = deadline.remainingNanos();
+                    if (Timeouts.isTimeout(remaining)) {
+                        removeWorker();
+                        return null;
+                    }
+                }
+                Waiter node = idleWorkers.enqueue(Waiter.prepare());
+                try {
+                    node.awaitNanos(monitor, remaining);
+                } catch (InterruptedException e) {
+                    // only shutdownNow interrupts the idle workers, and isShutdown is already set
+                    if (node.isDone && node.item != null) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                if (!node.isDone) {
+                    idleWorkers.remove(node);
+                } else if (node.item != null) {
+                    return (Runnable) node.item;
+                }
             }
         } finally {
             try {
@@ -75,9 +645,227 @@ public final class SimpleThreadPool {
         }
     }
 
+    private void onCompleted() {
+        completedCount.increment();
+        long now = System.nanoTime();
+        long next = nextSampleNanos.get();
+        // only one worker does each sample
+        if (now - next >= 0 && nextSampleNanos.compareAndSet(next, now + sampleIntervalNanos)) {
+            monitor.lock();
+            try {
+                adaptWorkerLimit(now);
+            } finally {
+                monitor.unlock();
+            }
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     */
+    private void adaptWorkerLimit(long now) {
+        long completed = completedCount.sum();
+        double throughput = (double) (completed - lastCompletedCount) / (now - lastSampleNanos);
+        lastCompletedCount = completed;
+        lastSampleNanos = now;
+        if (isShutdown) {
+            return;
+        }
+        if (step != 0) {
+            boolean isBetter = step > 0
+                    ? throughput > referenceThroughput * (1 + NOISE)
+                    : throughput >= referenceThroughput * (1 - NOISE);
+            if (isBetter) {
+                referenceThroughput = throughput;
+                // keeps climbing on the same direction
+                if (!changeWorkerLimit(step)) {
+                    step = 0;
+                }
+            } else {
+                changeWorkerLimit(-step);
+                step = 0;
+            }
+            return;
+        }
+        // stable, so the average of these samples is the reference for the next probe
+        stableSamples += 1;
+        stableThroughputSum += throughput;
+        if (stableSamples < STABLE_SAMPLES) {
+            return;
+        }
+        referenceThroughput = stableThroughputSum / stableSamples;
+        stableSamples = 0;
+        stableThroughputSum = 0;
+        step = nextProbe;
+        nextProbe = -nextProbe;
+        if (!changeWorkerLimit(step)) {
+            step = 0;
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Returns false if the limit can't change on that direction.
+     */
+    private boolean changeWorkerLimit(int delta) {
+        int newLimit = workerLimit + delta;
+        if (newLimit < minWorkerLimit || newLimit > maxWorkers) {
+            return false;
+        }
+        if (delta > 0 && queue.isEmpty() && submitters.isEmpty()) {
+            return false;
+        }
+        workerLimit = newLimit;
+        if (delta > 0) {
+            // the new workers start with the queued work
+            Runnable queued;
+            while (runningWorkers < workerLimit && (queued = takeQueued()) != null) {
+                startWorker(queued);
+                runningWorkers += 1;
+            }
+        } else if (runningWorkers > workerLimit && idleWorkers.isNotEmpty()) {
+            // an idle worker sees the new limit and ends
+            Waiter worker = idleWorkers.pull();
+            worker.item = null;
+            worker.isDone = true;
+            worker.signal();
+        }
+        return true;
+    }
+
+    // a runnable threw, so the worker ends and, if there is queued work, is replaced by a new one
+    private void replaceWorker() {
+        monitor.lock();
+        try {
+            Runnable queued = takeQueued();
+            if (queued != null) {
+                workers.remove(Thread.currentThread());
+                startWorker(queued);
+            } else {
+                removeWorker();
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Gives the work to an idle worker, to a new worker or queues it, if there is space.
+     */
+    private boolean tryDispatch(Runnable runnable) {
+        if (idleWorkers.isNotEmpty()) {
+            Waiter worker = idleWorkers.pull();
+            worker.item = runnable;
+            worker.isDone = true;
+            worker.signal();
+            return true;
+        }
+        if (runningWorkers < workerLimit) {
+            startWorker(runnable);
+            runningWorkers += 1;
+            return true;
+        }
+        // the waiting submitters go first
+        if (submitters.isEmpty() && queue.getCount() < queueCapacity) {
+            queue.enqueue(runnable);
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Returns the oldest queued work, moving the work of the waiting submitters to the freed space,
+     * or null if there is none.
+     */
+    private Runnable takeQueued() {
+        if (queue.isNotEmpty()) {
+            Runnable runnable = queue.pull().value;
+            if (submitters.isNotEmpty()) {
+                queue.enqueue(takeFromSubmitter());
+            }
+            return runnable;
+        }
+        // with capacity 0 the work is only on the submitters
+        if (submitters.isNotEmpty()) {
+            return takeFromSubmitter();
+        }
+        return null;
+    }
+
+    /*
+     * Must be called while holding the lock.
+     */
+    private Runnable takeFromSubmitter() {
+        Waiter submitter = submitters.pull();
+        submitter.isDone = true;
+        submitter.signal();
+        return (Runnable) submitter.item;
+    }
+
+    // the work of a signaled submitter is only cleared when rejected by shutdown
+    private static boolean isAccepted(Waiter submitter) {
+        if (submitter.item == null) {
+            throw new RejectedExecutionException("pool is shut down");
+        }
+        return true;
+    }
+
+    /*
+     * Must be called while holding the lock.
+     */
+    private void startWorker(Runnable runnable) {
+        Thread worker = new Worker(runnable);
+        workers.add(worker);
+        worker.start();
+    }
+
+    /*
+     * Must be called while holding the lock.
+     */
+    private void removeWorker() {
+        runningWorkers -= 1;
+        workers.remove(Thread.currentThread());
+        if (isShutdown && runningWorkers == 0) {
+            signalAll(terminationWaiters);
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     */
+    private void startShutdown() {
+        if (isShutdown) {
+            return;
+        }
+        isShutdown = true;
+        // the idle workers end, since the queue is empty when there are idle workers
+        signalAll(idleWorkers);
+        // the waiting submitters are rejected
+        signalAll(submitters);
+        if (runningWorkers == 0) {
+            signalAll(terminationWaiters);
+        }
+    }
+
+    private static void signalAll(WaiterQueue waiters) {
+        while (waiters.isNotEmpty()) {
+            Waiter waiter = waiters.pull();
+            waiter.item = null;
+            waiter.isDone = true;
+            waiter.signal();
+        }
+    }
+
     private void assertInvariant() {
         assert runningWorkers <= maxWorkers : "max workers was exceeded";
-        assert implies(queue.isNotEmpty(), runningWorkers == maxWorkers) : "TODO";
+        assert minWorkerLimit <= workerLimit && workerLimit <= maxWorkers : "worker limit out of bounds";
+        assert implies(queue.isNotEmpty(), runningWorkers >= workerLimit) : "work is queued while workers can be created";
+        assert implies(queue.isNotEmpty(), idleWorkers.isEmpty()) : "work is queued while there are idle workers";
+        assert queue.getCount() <= queueCapacity : "queue capacity was exceeded";
+        assert implies(submitters.isNotEmpty(), queue.getCount() == queueCapacity && runningWorkers >= workerLimit)
+                : "submitters are waiting while there is space";
     }
 
     private boolean implies(boolean p, boolean q) {
@@ -0,0 +1,180 @@
+package pt.isel.pc.demos.li51n.synchronizers;
+
+import pt.isel.pc.utils.Deadline;
+import pt.isel.pc.utils.Timeouts;
+import pt.isel.pc.utils.Waiter;
+import pt.isel.pc.utils.WaiterQueue;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Bounded blocking queue using the Michael-Scott two-lock algorithm: a linked list with a dummy head node,
+ * where enqueue only uses the tail lock and dequeue only uses the head lock, so that producers and consumers
+ * don't contend with each other.
+ * - The number of elements is on an AtomicInteger, the only state shared by both sides. It also publishes
+ *   the linked nodes: a consumer only reads head.next after seeing a count that includes that node.
+ * - Each side has its own waiter queue, guarded by its own lock. A waiting thread is only notified that the
+ *   state changed and must retry, so, unlike BlockingQueue, a thread that didn't wait may get the element
+ *   (or the free slot) first.
+ * - The other side's lock is only acquired on the transitions from empty (enqueue) or from full (dequeue).
+ *   The remaining waiters are notified in cascade, by the thread that was notified, while the state allows it.
+ * - Unlike BlockingQueue, capacity 0 is not supported, since it needs a handoff between both sides.
+ */
+public class TwoLockBlockingQueue<E> {
+
+    private static class Node<E> {
+        E item;
+        // written while holding the tail lock and read while holding the head lock, published by count
+        Node<E> next;
+
+        Node(E item) {
+            this.item = item;
+        }
+    }
+
+    private final int capacity;
+    private final AtomicInteger count = new AtomicInteger();
+
+    // head.item is always null, the first element is on head.next
+    private Node<E> head;
+    private final Lock headLock = new ReentrantLock();
+    private final WaiterQueue receivers = new WaiterQueue();
+
+    private Node<E> tail;
+    private final Lock tailLock = new ReentrantLock();
+    private final WaiterQueue senders = new WaiterQueue();
+
+    public TwoLockBlockingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        head = tail = new Node<>(null);
+    }
+
+    public boolean enqueue(E element, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        if (element == null) {
+            throw new NullPointerException("element must not be null");
+        }
+        int observed;
+        tailLock.lock();
+        try {
+            if (count.get() == capacity) {
+                // wait path
+                if (Timeouts.noWait(timeout)) {
+                    return false;
+                }
+                Deadline deadline = Deadline.after(timeout, timeUnit);
+                do {
+                    long remaining = deadline.remainingNanos();
+                    if (Timeouts.isTimeout(remaining)) {
+                        return false;
+                    }
+                    await(senders, tailLock, remaining);
+                } while (count.get() == capacity);
+            }
+            Node<E> node = new Node<>(element);
+            tail.next = node;
+            tail = node;
+            observed = count.getAndIncrement();
+            if (observed + 1 < capacity) {
+                signalHead(senders);
+            }
+        } finally {
+            tailLock.unlock();
+        }
+        if (observed == 0) {
+            signal(receivers, headLock);
+        }
+        return true;
+    }
+
+    public Optional<E> dequeue(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        E element;
+        int observed;
+        headLock.lock();
+        try {
+            if (count.get() == 0) {
+                // wait path
+                if (Timeouts.noWait(timeout)) {
+                    return Optional.empty();
+                }
+                Deadline deadline = Deadline.after(timeout, timeUnit);
+                do {
+                    long remaining = deadline.remainingNanos();
+                    if (Timeouts.isTimeout(remaining)) {
+                        return Optional.empty();
+                    }
+                    await(receivers, headLock, remaining);
+                } while (count.get() == 0);
+            }
+            // the first node becomes the new dummy node
+            Node<E> first = head.next;
+            element = first.item;
+            first.item = null;
+            head.next = null;
+            head = first;
+            observed = count.getAndDecrement();
+            if (observed > 1) {
+                signalHead(receivers);
+            }
+        } finally {
+            headLock.unlock();
+        }
+        if (observed == capacity) {
+            signal(senders, tailLock);
+        }
+        return Optional.of(element);
+    }
+
+    public int size() {
+        return count.get();
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Waits until notified, interrupted or the timeout expires, always leaving the queue.
+     * If the thread was notified, the interrupt is deferred so that the caller can use the notification,
+     * as in BlockingQueue, where an interrupt after the operation is done doesn't cancel it.
+     */
+    private static void await(WaiterQueue queue, Lock lock, long remaining) throws InterruptedException {
+        Waiter node = queue.enqueue(Waiter.prepare());
+        try {
+            node.awaitNanos(lock, remaining);
+        } catch (InterruptedException e) {
+            if (!node.isDone) {
+                queue.remove(node);
+                throw e;
+            }
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!node.isDone) {
+            queue.remove(node);
+        }
+    }
+
+    private static void signal(WaiterQueue queue, Lock lock) {
+        lock.lock();
+        try {
+            signalHead(queue);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Must be called while holding the queue's lock.
+     */
+    private static void signalHead(WaiterQueue queue) {
+        if (queue.isNotEmpty()) {
+            Waiter waiter = queue.pull();
+            waiter.isDone = true;
+            waiter.signal();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package pt.isel.pc.demos.li51n.synchronizers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Unbounded work-stealing deque without locks, based on the Chase-Lev deque.
+ * - Only the owner thread calls push and pop, on the bottom end, so it uses the deque as a LIFO stack.
+ * - Any thread can call steal, on the top end, so the thieves take the oldest elements, in FIFO order.
+ * - The owner only writes bottom, and the thieves only change top, with a CAS. The owner only needs
+ *   a CAS on top when taking the last element, which a thief may also be taking.
+ * - The array only grows, by the owner. A thief reading the old array still gets the right element,
+ *   since the elements are copied and the old array isn't changed.
+ * - Whoever takes an element clears its slot, so that the deque doesn't keep references to the taken
+ *   elements. A thief clears it after the CAS on top, so the owner only reuses a slot after it was
+ *   cleared, growing the array otherwise. That way, the thief's clearing never removes a newer element,
+ *   even if it is the same object.
+ * The positions only grow, and are mapped to the array with a mask.
+ */
+public class WorkStealingDeque<E> {
+
+    private static final int INITIAL_SIZE = 32;
+
+    private final AtomicLong top = new AtomicLong();
+    private volatile long bottom = 0;
+    private volatile AtomicReferenceArray<E> items = new AtomicReferenceArray<>(INITIAL_SIZE);
+
+    // must only be called by the owner
+    public void push(E value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        long b = bottom;
+        long t = top.get();
+        AtomicReferenceArray<E> array = items;
+        if (b - t >= array.length() || array.get(index(array, b)) != null) {
+            // full, or a thief didn't clear the slot yet
+            array = grow(array, t, b);
+        }
+        array.lazySet(index(array, b), value);
+        // publishes the element
+        bottom = b + 1;
+    }
+
+    // must only be called by the owner, returns null if the deque is empty
+    public E pop() {
+        long b = bottom - 1;
+        AtomicReferenceArray<E> array = items;
+        // reserves the element before reading top, so that a thief reading bottom after this doesn't take it
+        bottom = b;
+        long t = top.get();
+        if (t > b) {
+            // it was empty
+            bottom = b + 1;
+            return null;
+        }
+        E value = array.get(index(array, b));
+        if (t < b) {
+            // the thieves can't reach this element, so it doesn't need a CAS
+            array.lazySet(index(array, b), null);
+            return value;
+        }
+        // last element, which a thief may also be taking, and whoever takes it clears the slot
+        if (top.compareAndSet(t, t + 1)) {
+            array.lazySet(index(array, b), null);
+        } else {
+            value = null;
+        }
+        bottom = b + 1;
+        return value;
+    }
+
+    // may be called by any thread, returns null if the deque is empty or the element was taken by another thread
+    public E steal() {
+        long t = top.get();
+        long b = bottom;
+        if (t >= b) {
+            return null;
+        }
+        AtomicReferenceArray<E> array = items;
+        E value = array.get(index(array, t));
+        if (!top.compareAndSet(t, t + 1)) {
+            return null;
+        }
+        // the owner doesn't reuse the slot while it isn't cleared, so this clears this element and not a newer one.
+        // If the array grew meanwhile, the new one may still have a copy, which the next growth drops
+        array.compareAndSet(index(array, t), value, null);
+        return value;
+    }
+
+    // approximate, since it may change concurrently
+    public boolean isEmpty() {
+        return top.get() >= bottom;
+    }
+
+    private AtomicReferenceArray<E> grow(AtomicReferenceArray<E> array, long t, long b) {
+        AtomicReferenceArray<E> newArray = new AtomicReferenceArray<>(2 * array.length());
+        for (long i = t; i < b; ++i) {
+            newArray.lazySet(index(newArray, i), array.get(index(array, i)));
+        }
+        items = newArray;
+        return newArray;
+    }
+
+    private static int index(AtomicReferenceArray<?> array, long position) {
+        return (int) (position & (array.length() - 1));
+    }
+}
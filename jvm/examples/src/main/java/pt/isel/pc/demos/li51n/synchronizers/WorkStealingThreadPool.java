@@ -0,0 +1,345 @@
+package pt.isel.pc.demos.li51n.synchronizers;
+
+import pt.isel.pc.utils.Deadline;
+import pt.isel.pc.utils.Timeouts;
+import pt.isel.pc.utils.Waiter;
+import pt.isel.pc.utils.WaiterQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Work-stealing alternative to SimpleThreadPool, with a fixed number of workers, where executing and
+ * taking work doesn't use a lock.
+ * - Each worker owns a WorkStealingDeque. The work executed by a worker goes to its own deque, and the
+ *   worker takes the most recent work first (LIFO), which is the work most likely to be on its cache.
+ * - The work executed by other threads goes to a shared LockFreeQueue.
+ * - A worker without work takes it from the shared queue, or steals the oldest work (FIFO) from another
+ *   worker, which is usually the largest part of a recursive computation.
+ * The lock is only used to park and unpark the idle workers, and is only acquired by execute when there are
+ * idle workers. As in BlockingRingBuffer, a worker increments idleCount before looking for work one last
+ * time, and execute reads idleCount after adding the work, so at least one of them sees the other.
+ */
+public final class WorkStealingThreadPool {
+
+    private final class Worker extends Thread {
+        final WorkStealingDeque<Runnable> deque = new WorkStealingDeque<>();
+
+        @Override
+        public void run() {
+            threadMethod(this);
+        }
+
+        WorkStealingThreadPool pool() {
+            return WorkStealingThreadPool.this;
+        }
+    }
+
+    private final Worker[] workers;
+    private final LockFreeQueue<Runnable> inbound = new LockFreeQueue<>();
+    // executes by non-worker threads that already checked isShutdown and didn't enqueue yet
+    private final AtomicInteger pendingSubmissions = new AtomicInteger();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private volatile boolean isShutdown = false;
+
+    private final Lock monitor = new ReentrantLock();
+    private final WaiterQueue idleWorkers = new WaiterQueue();
+    private final WaiterQueue terminationWaiters = new WaiterQueue();
+    private int liveWorkers;
+
+    public WorkStealingThreadPool(int nOfWorkers) {
+        if (nOfWorkers <= 0) {
+            throw new IllegalArgumentException("nOfWorkers must be positive");
+        }
+        workers = new Worker[nOfWorkers];
+        for (int i = 0; i < nOfWorkers; ++i) {
+            workers[i] = new Worker();
+        }
+        liveWorkers = nOfWorkers;
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    public void execute(Runnable runnable) {
+        if (runnable == null) {
+            throw new NullPointerException();
+        }
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker && ((Worker) current).pool() == this) {
+            // the worker only ends after its deque is empty, so the work is never left behind
+            if (isShutdown) {
+                throw new RejectedExecutionException("pool is shut down");
+            }
+            ((Worker) current).deque.push(runnable);
+        } else {
+            // the workers only end after seeing no pending submissions, so the work is never left behind
+            pendingSubmissions.incrementAndGet();
+            boolean isRejected = isShutdown;
+            if (!isRejected) {
+                inbound.enqueue(runnable);
+            }
+            pendingSubmissions.decrementAndGet();
+            // a worker that saw the pending submission is waiting for it, even if it was rejected.
+            // During shutdown, all the idle workers may be waiting for it, to end.
+            if (isShutdown) {
+                signalAllIdleWorkers();
+            } else if (idleCount.get() > 0) {
+                signalIdleWorker();
+            }
+            if (isRejected) {
+                throw new RejectedExecutionException("pool is shut down");
+            }
+            return;
+        }
+        if (idleCount.get() > 0) {
+            signalIdleWorker();
+        }
+    }
+
+    /**
+     * Stops accepting work. The already accepted work is still run.
+     */
+    public void shutdown() {
+        monitor.lock();
+        try {
+            startShutdown();
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting work and interrupts the workers.
+     *
+     * @return the accepted work that didn't start running, which will not be run.
+     */
+    public List<Runnable> shutdownNow() {
+        monitor.lock();
+        try {
+            startShutdown();
+            List<Runnable> pending = new ArrayList<>();
+            Runnable runnable;
+            while ((runnable = findWork(null)) != null) {
+                pending.add(runnable);
+            }
+            for (Worker worker : workers) {
+                worker.interrupt();
+            }
+            return pending;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * Waits until the pool is shut down and all the workers ended.
+     *
+     * @return {@code true} if terminated, {@code false} on timeout.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        monitor.lock();
+        try {
+            // fast path
+            if (liveWorkers == 0) {
+                return true;
+            }
+            // wait path
+            if (Timeouts.noWait(timeout)) {
+                return false;
+            }
+
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
+            Waiter node = terminationWaiters.enqueue(Waiter.prepare());
+            while (true) {
+                try {
+                    node.awaitNanos(monitor, remaining);
+                } catch (InterruptedException e) {
+                    if (node.isDone) {
+                        Thread.currentThread().interrupt();
+                        return true;
+                    }
+                    terminationWaiters.remove(node);
+                    throw e;
+                }
+                // evaluate success condition
+                if (node.isDone) {
+                    return true;
+                }
+                remaining = deadline.remainingNanos();
+                if (Timeouts.isTimeout(remaining)) {
+                    terminationWaiters.remove(node);
+                    return false;
+                }
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    public boolean isShutdown() {
+        return isShutdown;
+    }
+
+    public boolean isTerminated() {
+        monitor.lock();
+        try {
+            return liveWorkers == 0;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    public int getWorkers() {
+        return workers.length;
+    }
+
+    private void threadMethod(Worker worker) {
+        try {
+            while (true) {
+                // an interrupt from shutdownNow was meant for the previous runnable
+                Thread.interrupted();
+                Runnable runnable = findWork(worker);
+                if (runnable == null) {
+                    runnable = awaitWork(worker);
+                    if (runnable == null) {
+                        return;
+                    }
+                }
+                try {
+                    runnable.run();
+                } catch (Throwable t) {
+                    // the number of workers is fixed, so the worker reports the failure and continues
+                    worker.getUncaughtExceptionHandler().uncaughtException(worker, t);
+                }
+            }
+        } finally {
+            monitor.lock();
+            try {
+                liveWorkers -= 1;
+                if (liveWorkers == 0) {
+                    signalAll(terminationWaiters);
+                }
+            } finally {
+                monitor.unlock();
+            }
+        }
+    }
+
+    /*
+     * Looks for work on the worker's own deque, if any, then on the shared queue and then on the other deques,
+     * starting on a random one so that the thieves spread over the victims.
+     */
+    private Runnable findWork(Worker worker) {
+        if (worker != null) {
+            Runnable runnable = worker.deque.pop();
+            if (runnable != null) {
+                return runnable;
+            }
+        }
+        Optional<Runnable> maybeRunnable = inbound.dequeue();
+        if (maybeRunnable.isPresent()) {
+            return maybeRunnable.get();
+        }
+        int start = ThreadLocalRandom.current().nextInt(workers.length);
+        for (int i = 0; i < workers.length; ++i) {
+            Worker victim = workers[(start + i) % workers.length];
+            if (victim == worker) {
+                continue;
+            }
+            // steal also returns null when losing a race, so it retries while the deque isn't empty
+            while (!victim.deque.isEmpty()) {
+                Runnable runnable = victim.deque.steal();
+                if (runnable != null) {
+                    return runnable;
+                }
+            }
+        }
+        return null;
+    }
+
+    // returns null when the worker must end
+    private Runnable awaitWork(Worker worker) {
+        monitor.lock();
+        try {
+            while (true) {
+                idleCount.incrementAndGet();
+                Runnable runnable = findWork(worker);
+                if (runnable != null) {
+                    idleCount.decrementAndGet();
+                    return runnable;
+                }
+                if (isShutdown && pendingSubmissions.get() == 0) {
+                    idleCount.decrementAndGet();
+                    return null;
+                }
+                Waiter node = idleWorkers.enqueue(Waiter.prepare());
+                try {
+                    node.awaitNanos(monitor, Long.MAX_VALUE);
+                } catch (InterruptedException e) {
+                    // only shutdownNow interrupts the idle workers, and isShutdown is already set
+                }
+                // a signaled worker was already removed from the queue and from idleCount
+                if (!node.isDone) {
+                    idleWorkers.remove(node);
+                    idleCount.decrementAndGet();
+                }
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    private void signalIdleWorker() {
+        monitor.lock();
+        try {
+            if (idleWorkers.isNotEmpty()) {
+                Waiter waiter = idleWorkers.pull();
+                idleCount.decrementAndGet();
+                waiter.isDone = true;
+                waiter.signal();
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    private void signalAllIdleWorkers() {
+        monitor.lock();
+        try {
+            while (idleWorkers.isNotEmpty()) {
+                Waiter waiter = idleWorkers.pull();
+                idleCount.decrementAndGet();
+                waiter.isDone = true;
+                waiter.signal();
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     */
+    private void startShutdown() {
+        isShutdown = true;
+        // the idle workers look for work one last time and end, unless there are pending submissions
+        signalAllIdleWorkers();
+    }
+
+    private static void signalAll(WaiterQueue waiters) {
+        while (waiters.isNotEmpty()) {
+            Waiter waiter = waiters.pull();
+            waiter.isDone = true;
+            waiter.signal();
+        }
+    }
+}
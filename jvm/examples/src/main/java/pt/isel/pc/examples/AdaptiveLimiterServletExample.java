@@ -0,0 +1,87 @@
+package pt.isel.pc.examples;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pt.isel.pc.examples.limiters.AdaptiveLimiter;
+import pt.isel.pc.examples.limiters.GradientLimit;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same server as {@link SimpleServletExample}, where {@link SimpleServletExample.TheServlet} is protected
+ * from overload by an {@link AdaptiveLimiter}.
+ * Requests that don't get a permit within {@link #QUEUE_TIMEOUT_MS} are rejected with 503 (Service Unavailable),
+ * instead of occupying a server thread.
+ * Try it with a load generator, e.g. {@code ab -n 2000 -c 300 http://localhost:8080/}, and observe
+ * the limit changes on the log.
+ */
+public class AdaptiveLimiterServletExample {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveLimiterServletExample.class);
+    private static final int PORT = 8080;
+    private static final long QUEUE_TIMEOUT_MS = 100;
+
+    public static void main(String[] args) throws Exception {
+        Server server = new Server(PORT);
+        ServletHandler handler = new ServletHandler();
+        AdaptiveLimiter limiter = new AdaptiveLimiter(
+                new GradientLimit(10, 1, 200, 1.5, 0.2, 10, 600));
+        LimitedServlet servlet = new LimitedServlet(new SimpleServletExample.TheServlet(), limiter);
+
+        handler.addServletWithMapping(new ServletHolder(servlet), "/*");
+        log.info("registered {} on all paths", servlet);
+
+        server.setHandler(handler);
+        server.start();
+        log.info("server started listening on port {}", PORT);
+
+        log.info("Waiting for server to end");
+        server.join();
+
+        log.info("main is ending");
+    }
+
+    static class LimitedServlet extends HttpServlet {
+
+        private final SimpleServletExample.TheServlet servlet;
+        private final AdaptiveLimiter limiter;
+
+        LimitedServlet(SimpleServletExample.TheServlet servlet, AdaptiveLimiter limiter) {
+            this.servlet = servlet;
+            this.limiter = limiter;
+        }
+
+        @Override
+        public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            Optional<AdaptiveLimiter.Permit> permit;
+            try {
+                permit = limiter.tryAcquire(QUEUE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+            if (permit.isEmpty()) {
+                log.info("request rejected, limit = {}", limiter.getLimit());
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+            try {
+                servlet.doGet(request, response);
+                permit.get().onSuccess();
+            } catch (IOException | RuntimeException e) {
+                permit.get().onDropped();
+                throw e;
+            }
+            log.info("request processed, limit = {}", limiter.getLimit());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package pt.isel.pc.examples.limiters;
+
+import pt.isel.pc.examples.synchronizers.ResizableNArySemaphore;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of requests in processing, tuning the limit with a {@link LimitAlgorithm} fed with the
+ * latency of each request.
+ * Each request must acquire a {@link Permit} before being processed and complete it afterwards,
+ * with {@link Permit#onSuccess()} or {@link Permit#onDropped()}.
+ * The limit is enforced by a {@link ResizableNArySemaphore}, so requests can wait for a permit up to a timeout.
+ */
+public class AdaptiveLimiter {
+
+    /**
+     * Permission to process a request, which must be completed exactly once.
+     */
+    public final class Permit {
+        private final long startNanos = System.nanoTime();
+        private final int inFlight;
+        private boolean isCompleted = false;
+
+        private Permit(int inFlight) {
+            this.inFlight = inFlight;
+        }
+
+        /**
+         * The request was processed, and its latency is used to update the limit.
+         */
+        public void onSuccess() {
+            complete(false);
+        }
+
+        /**
+         * The request failed due to overload (e.g. a timeout), which reduces the limit.
+         */
+        public void onDropped() {
+            complete(true);
+        }
+
+        private void complete(boolean dropped) {
+            if (isCompleted) {
+                throw new IllegalStateException("permit already completed");
+            }
+            isCompleted = true;
+            onComplete(System.nanoTime() - startNanos, inFlight, dropped);
+        }
+    }
+
+    private final LimitAlgorithm algorithm;
+    private final ResizableNArySemaphore semaphore;
+    private final Lock monitor = new ReentrantLock();
+    // only accessed while holding the lock
+    private int limit;
+
+    public AdaptiveLimiter(LimitAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        this.limit = algorithm.getInitialLimit();
+        this.semaphore = new ResizableNArySemaphore(limit);
+    }
+
+    /**
+     * Acquires a permit, waiting up to the timeout if the limit was reached.
+     *
+     * @return the permit, or an empty optional if the timeout was reached.
+     */
+    public Optional<Permit> tryAcquire(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        if (!semaphore.acquire(1, timeout, timeUnit)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Permit(semaphore.getAcquiredUnits()));
+    }
+
+    public int getLimit() {
+        return semaphore.getLimit();
+    }
+
+    private void onComplete(long rttNanos, int inFlight, boolean dropped) {
+        monitor.lock();
+        try {
+            int newLimit = algorithm.update(limit, rttNanos, inFlight, dropped);
+            if (newLimit != limit) {
+                limit = newLimit;
+                semaphore.setLimit(newLimit);
+            }
+        } finally {
+            monitor.unlock();
+        }
+        semaphore.release(1);
+    }
+}
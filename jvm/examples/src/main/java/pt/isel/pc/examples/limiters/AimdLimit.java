@@ -0,0 +1,49 @@
+package pt.isel.pc.examples.limiters;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Additive increase, multiplicative decrease: the limit grows by one after each successful request and
+ * is multiplied by {@code backoffRatio} after a dropped request or a request slower than {@code timeout}.
+ * The limit only grows when at least half of it is being used, so that it doesn't grow indefinitely
+ * while the load is low.
+ */
+public class AimdLimit implements LimitAlgorithm {
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long timeoutNanos;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                     long timeout, TimeUnit timeUnit) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 0 < minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.timeoutNanos = timeUnit.toNanos(timeout);
+    }
+
+    @Override
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    @Override
+    public int update(int currentLimit, long rttNanos, int inFlight, boolean dropped) {
+        if (dropped || rttNanos > timeoutNanos) {
+            return Math.max(minLimit, (int) (currentLimit * backoffRatio));
+        }
+        if (inFlight * 2 >= currentLimit) {
+            return Math.min(maxLimit, currentLimit + 1);
+        }
+        return currentLimit;
+    }
+}
@@ -0,0 +1,193 @@
+package pt.isel.pc.examples.limiters;
+
+import pt.isel.pc.utils.Deadline;
+import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.TimerWheel;
+import pt.isel.pc.utils.Timeouts;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate limiter with the same policy as {@link TokenBucketRateLimiter} and an asynchronous acquisition
+ * interface, such as {@link pt.isel.pc.examples.synchronizers.AsyncNArySemaphore}, e.g. to shape the bandwidth
+ * of asynchronous I/O.
+ * Since there is no refill thread, a {@link TimerWheel} timeout is scheduled for the instant when the tokens
+ * of the request at the head of the queue will be available. The request timeouts also use the wheel.
+ * The futures are always completed outside the lock. Cancelling a pending future gives up the acquisition,
+ * but the tokens of a future cancelled after being acquired are not returned.
+ */
+public class AsyncTokenBucketRateLimiter {
+
+    /**
+     * Represents a pending acquisition request, which is also the future returned to the caller.
+     */
+    private class Request extends CompletableFuture<Boolean> {
+        final int tokens;
+        NodeLinkedList.Node<Request> node;
+        // null for infinite timeouts
+        TimerWheel.Timeout timeout;
+        // only accessed while holding the lock
+        boolean isDone = false;
+
+        Request(int tokens) {
+            this.tokens = tokens;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                giveUp(this);
+            }
+            return cancelled;
+        }
+
+        // Futures derived from this one (e.g. using thenApply) are plain CompletableFutures
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new CompletableFuture<>();
+        }
+    }
+
+    private final TokenBucket bucket;
+    private final NodeLinkedList<Request> queue = new NodeLinkedList<>();
+    private final Lock monitor = new ReentrantLock();
+    private final TimerWheel timer;
+    // the timeout for the tokens of the head request, only accessed while holding the lock
+    private TimerWheel.Timeout refillTimeout = null;
+
+    public AsyncTokenBucketRateLimiter(int capacity, long tokens, long period, TimeUnit timeUnit) {
+        this(capacity, tokens, period, timeUnit, TimerWheel.getDefault());
+    }
+
+    public AsyncTokenBucketRateLimiter(int capacity, long tokens, long period, TimeUnit timeUnit, TimerWheel timer) {
+        this.bucket = new TokenBucket(capacity, tokens, period, timeUnit);
+        this.timer = timer;
+    }
+
+    public CompletableFuture<Boolean> acquireAsync(int requestedTokens, long timeout, TimeUnit timeUnit) {
+        bucket.checkTokens(requestedTokens);
+
+        monitor.lock();
+        try {
+            // fast-path
+            if (queue.isEmpty() && bucket.tryTake(requestedTokens, System.nanoTime())) {
+                return CompletableFuture.completedFuture(true);
+            }
+
+            if (Timeouts.noWait(timeout)) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            // async-path
+            Request request = new Request(requestedTokens);
+            request.node = queue.enqueue(request);
+            if (!Deadline.isInfinite(timeout, timeUnit)) {
+                request.timeout = timer.schedule(() -> giveUp(request), timeout, timeUnit);
+            }
+            if (queue.isHeadNode(request.node)) {
+                scheduleRefill();
+            }
+            return request;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /*
+     * Must be called while holding the lock and with a non-empty queue.
+     */
+    private void scheduleRefill() {
+        if (refillTimeout != null) {
+            refillTimeout.cancel();
+        }
+        long delay = bucket.nanosUntilAvailable(queue.getHeadValue().tokens, System.nanoTime());
+        refillTimeout = timer.schedule(this::onRefill, delay, TimeUnit.NANOSECONDS);
+    }
+
+    private void onRefill() {
+        List<Request> requestsToComplete;
+        monitor.lock();
+        try {
+            refillTimeout = null;
+            requestsToComplete = takeAllPossible();
+        } finally {
+            monitor.unlock();
+        }
+        completeAll(requestsToComplete);
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Removes the head requests whose tokens are available and schedules the refill for the next one.
+     */
+    private List<Request> takeAllPossible() {
+        List<Request> requestsToComplete = null;
+        long now = System.nanoTime();
+        while (queue.isNotEmpty() && bucket.tryTake(queue.getHeadValue().tokens, now)) {
+            Request request = queue.pull().value;
+            request.isDone = true;
+            if (requestsToComplete == null) {
+                requestsToComplete = new LinkedList<>();
+            }
+            requestsToComplete.add(request);
+        }
+        if (queue.isNotEmpty()) {
+            scheduleRefill();
+        }
+        return requestsToComplete;
+    }
+
+    /*
+     * Must be called without holding the lock.
+     */
+    private void completeAll(List<Request> requestsToComplete) {
+        if (requestsToComplete == null) {
+            return;
+        }
+        for (Request request : requestsToComplete) {
+            cancelTimeout(request);
+            request.complete(true);
+        }
+    }
+
+    /*
+     * Called when the request times out or is cancelled. It only takes effect if the request is still queued.
+     */
+    private void giveUp(Request request) {
+        List<Request> requestsToComplete = null;
+        monitor.lock();
+        try {
+            if (request.isDone) {
+                return;
+            }
+            boolean wasHead = queue.isHeadNode(request.node);
+            queue.remove(request.node);
+            request.isDone = true;
+            if (wasHead) {
+                if (refillTimeout != null) {
+                    refillTimeout.cancel();
+                    refillTimeout = null;
+                }
+                // the new head may need fewer tokens
+                requestsToComplete = takeAllPossible();
+            }
+        } finally {
+            monitor.unlock();
+        }
+        cancelTimeout(request);
+        request.complete(false);
+        completeAll(requestsToComplete);
+    }
+
+    private static void cancelTimeout(Request request) {
+        if (request.timeout != null) {
+            request.timeout.cancel();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package pt.isel.pc.examples.limiters;
+
+/**
+ * Latency-based limit, in the style of TCP Vegas and of the {@code Gradient2Limit} of Netflix's
+ * concurrency-limits library.
+ * It compares a short-term average of the request latency with a long-term average, which approximates
+ * the latency without queueing. When the short-term latency grows, requests are queueing and the ratio
+ * between both (the gradient) becomes lower than one, reducing the limit proportionally.
+ * When the latencies are similar, the limit grows by {@code queueSize}, to probe for more capacity.
+ * <pre>
+ *     gradient = max(0.5, min(1, tolerance * longRtt / shortRtt))
+ *     newLimit = limit * gradient + queueSize
+ *     limit = limit * (1 - smoothing) + newLimit * smoothing
+ * </pre>
+ * A dropped request halves {@code newLimit}, without adding {@code queueSize}.
+ */
+public class GradientLimit implements LimitAlgorithm {
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double shortWeight;
+    private final double longWeight;
+
+    // exponential moving averages, in nanoseconds
+    private double shortRtt = 0;
+    private double longRtt = 0;
+    // the limit is kept as a double so that the smoothing doesn't get stuck due to rounding
+    private double estimatedLimit;
+
+    /**
+     * @param tolerance   how much the short-term latency may exceed the long-term one before reducing the limit,
+     *                    e.g. {@code 1.5}.
+     * @param smoothing   how fast the limit changes, between 0 and 1, e.g. {@code 0.2}.
+     * @param shortWindow the number of samples of the short-term average, e.g. {@code 10}.
+     * @param longWindow  the number of samples of the long-term average, e.g. {@code 600}.
+     */
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit,
+                         double tolerance, double smoothing, int shortWindow, int longWindow) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 0 < minLimit <= initialLimit <= maxLimit");
+        }
+        if (tolerance < 1) {
+            throw new IllegalArgumentException("tolerance must be at least 1");
+        }
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("smoothing must be between 0 and 1");
+        }
+        if (shortWindow <= 0 || longWindow < shortWindow) {
+            throw new IllegalArgumentException("windows must satisfy 0 < shortWindow <= longWindow");
+        }
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.shortWeight = 2.0 / (shortWindow + 1);
+        this.longWeight = 2.0 / (longWindow + 1);
+        this.estimatedLimit = initialLimit;
+    }
+
+    @Override
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    @Override
+    public int update(int currentLimit, long rttNanos, int inFlight, boolean dropped) {
+        if (longRtt == 0) {
+            shortRtt = rttNanos;
+            longRtt = rttNanos;
+        } else {
+            shortRtt += (rttNanos - shortRtt) * shortWeight;
+            longRtt += (rttNanos - longRtt) * longWeight;
+        }
+        // after a long period of queueing, the long-term average also grows, so it is pulled down faster
+        // when the latency recovers
+        if (longRtt / shortRtt > 2) {
+            longRtt = shortRtt * 2;
+        }
+
+        // don't grow while the limit isn't being used
+        if (!dropped && inFlight * 2 < estimatedLimit) {
+            return currentLimit;
+        }
+
+        double newLimit;
+        if (dropped) {
+            // without probing, otherwise the limit would never shrink when it is small
+            newLimit = estimatedLimit * 0.5;
+        } else {
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+            double queueSize = Math.sqrt(estimatedLimit);
+            newLimit = estimatedLimit * gradient + queueSize;
+        }
+        estimatedLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        return (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,19 @@
+package pt.isel.pc.examples.limiters;
+
+/**
+ * Computes a new concurrency limit from the observed behaviour of each request.
+ * Implementations don't need to be thread-safe, since {@link AdaptiveLimiter} calls them while holding its lock.
+ */
+public interface LimitAlgorithm {
+
+    int getInitialLimit();
+
+    /**
+     * @param currentLimit the current limit.
+     * @param rttNanos     the time the request took to be processed.
+     * @param inFlight     the number of requests in processing when the request started, including itself.
+     * @param dropped      {@code true} if the request failed due to overload, e.g. it timed out.
+     * @return the new limit.
+     */
+    int update(int currentLimit, long rttNanos, int inFlight, boolean dropped);
+}
@@ -0,0 +1,66 @@
+package pt.isel.pc.examples.limiters;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket state, using the Generic Cell Rate Algorithm (GCRA): instead of a token count refilled
+ * periodically, it keeps the theoretical arrival time (TAT), i.e., the instant when the bucket will be full.
+ * Taking {@code n} tokens moves the TAT {@code n} emission intervals forward, and is allowed if the TAT doesn't
+ * get further than {@code capacity} emission intervals from now.
+ * The refill is therefore computed lazily, from the current time, without needing a refill thread.
+ * Not thread-safe, must be used while holding the rate limiter's lock.
+ */
+final class TokenBucket {
+
+    private final int capacity;
+    private final double nanosPerToken;
+    private final long burstNanos;
+    private long theoreticalArrivalTime;
+
+    /**
+     * @param capacity the maximum number of tokens, i.e., the maximum burst size.
+     * @param tokens   the number of tokens added per period.
+     * @param period   the refill period.
+     * @param timeUnit the period unit.
+     */
+    TokenBucket(int capacity, long tokens, long period, TimeUnit timeUnit) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (tokens <= 0 || period <= 0) {
+            throw new IllegalArgumentException("the refill rate must be positive");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = (double) timeUnit.toNanos(period) / tokens;
+        this.burstNanos = cost(capacity);
+        // starts full
+        this.theoreticalArrivalTime = System.nanoTime();
+    }
+
+    void checkTokens(int tokens) {
+        if (tokens <= 0 || tokens > capacity) {
+            throw new IllegalArgumentException("tokens must be between 1 and the capacity");
+        }
+    }
+
+    /**
+     * Returns the amount of nanoseconds until the tokens are available, which is zero if they are available now.
+     */
+    long nanosUntilAvailable(int tokens, long now) {
+        long newTat = Math.max(theoreticalArrivalTime - now, 0) + cost(tokens);
+        return Math.max(newTat - burstNanos, 0);
+    }
+
+    boolean tryTake(int tokens, long now) {
+        if (nanosUntilAvailable(tokens, now) > 0) {
+            return false;
+        }
+        theoreticalArrivalTime = now + Math.max(theoreticalArrivalTime - now, 0) + cost(tokens);
+        return true;
+    }
+
+    // rounded up, so that the rate is never exceeded
+    private long cost(int tokens) {
+        return (long) Math.ceil(tokens * nanosPerToken);
+    }
+}
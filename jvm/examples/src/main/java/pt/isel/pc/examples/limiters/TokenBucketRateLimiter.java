@@ -0,0 +1,101 @@
+package pt.isel.pc.examples.limiters;
+
+import pt.isel.pc.utils.Deadline;
+import pt.isel.pc.utils.Timeouts;
+import pt.isel.pc.utils.Waiter;
+import pt.isel.pc.utils.WaiterQueue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate limiter where each acquisition takes a number of tokens from a {@link TokenBucket}, refilled at a
+ * constant rate up to its capacity.
+ * It has the same interface and FIFO policy as {@link pt.isel.pc.examples.synchronizers.NArySemaphoreUsingKernelStyle},
+ * but the tokens are never released: they are refilled with time.
+ * Since there is no refill thread, the thread at the head of the queue waits until its tokens are available
+ * and takes them itself, signaling the next thread in the queue to do the same.
+ * An acquisition fails immediately when it is at the head of the queue and its tokens would only be
+ * available after the timeout.
+ */
+public class TokenBucketRateLimiter {
+
+    private final TokenBucket bucket;
+    private final WaiterQueue queue = new WaiterQueue();
+    private final Lock monitor = new ReentrantLock();
+
+    /**
+     * @param capacity the maximum number of tokens, i.e., the maximum burst size.
+     * @param tokens   the number of tokens added per period.
+     * @param period   the refill period.
+     * @param timeUnit the period unit.
+     */
+    public TokenBucketRateLimiter(int capacity, long tokens, long period, TimeUnit timeUnit) {
+        this.bucket = new TokenBucket(capacity, tokens, period, timeUnit);
+    }
+
+    public boolean acquire(int requestedTokens, long timeout, TimeUnit timeUnit) throws InterruptedException {
+        bucket.checkTokens(requestedTokens);
+
+        monitor.lock();
+        try {
+            // fast-path
+            if (queue.isEmpty() && bucket.tryTake(requestedTokens, System.nanoTime())) {
+                return true;
+            }
+
+            if (Timeouts.noWait(timeout)) {
+                return false;
+            }
+
+            // wait-path
+            final Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
+            Waiter localRequest = Waiter.prepare();
+            localRequest.units = requestedTokens;
+            queue.enqueue(localRequest);
+            while (true) {
+                long waitNanos = remaining;
+                if (queue.isHead(localRequest)) {
+                    long now = System.nanoTime();
+                    if (bucket.tryTake(requestedTokens, now)) {
+                        leave(localRequest);
+                        return true;
+                    }
+                    waitNanos = bucket.nanosUntilAvailable(requestedTokens, now);
+                    if (waitNanos > remaining) {
+                        // the tokens will not be available before the timeout, so give up now
+                        leave(localRequest);
+                        return false;
+                    }
+                }
+                try {
+                    localRequest.awaitNanos(monitor, waitNanos);
+                } catch (InterruptedException e) {
+                    leave(localRequest);
+                    throw e;
+                }
+                remaining = deadline.remainingNanos();
+                if (Timeouts.isTimeout(remaining)) {
+                    leave(localRequest);
+                    return false;
+                }
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Removes the request from the queue and, if it was the head, signals the new head.
+     */
+    private void leave(Waiter localRequest) {
+        boolean wasHead = queue.isHead(localRequest);
+        queue.remove(localRequest);
+        if (wasHead && queue.isNotEmpty()) {
+            queue.getHead().signal();
+        }
+    }
+}
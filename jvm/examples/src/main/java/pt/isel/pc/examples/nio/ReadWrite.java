@@ -2,11 +2,13 @@ package pt.isel.pc.examples.nio;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pt.isel.pc.examples.limiters.AsyncTokenBucketRateLimiter;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.CompletionHandler;
+import java.util.concurrent.TimeUnit;
 
 public class ReadWrite {
 
@@ -15,6 +17,8 @@ public class ReadWrite {
     private final AsynchronousSocketChannel sourceChannel;
     private final AsynchronousFileChannel targetChannel;
     private final CompletionHandler<Integer, Void> ch;
+    // optional, limits the rate of written bytes
+    private final AsyncTokenBucketRateLimiter rateLimiter;
 
     private final ByteBuffer buf = ByteBuffer.allocate(8);
     private int size = 0;
@@ -23,18 +27,32 @@ public class ReadWrite {
     private ReadWrite(
             AsynchronousSocketChannel sourceChannel,
             AsynchronousFileChannel targetChannel,
-            CompletionHandler<Integer, Void> ch
+            CompletionHandler<Integer, Void> ch,
+            AsyncTokenBucketRateLimiter rateLimiter
     ) {
 
         this.sourceChannel = sourceChannel;
         this.targetChannel = targetChannel;
         this.ch = ch;
+        this.rateLimiter = rateLimiter;
     }
 
     public static void run(AsynchronousSocketChannel sourceChannel,
                     AsynchronousFileChannel targetChannel,
                     CompletionHandler<Integer, Void> ch) {
-        ReadWrite readWrite = new ReadWrite(sourceChannel, targetChannel, ch);
+        run(sourceChannel, targetChannel, ch, null);
+    }
+
+    /**
+     * Same as {@link #run(AsynchronousSocketChannel, AsynchronousFileChannel, CompletionHandler)}, where each
+     * write first acquires one token per byte from the rate limiter, so its capacity must not be less than the
+     * buffer size.
+     */
+    public static void run(AsynchronousSocketChannel sourceChannel,
+                           AsynchronousFileChannel targetChannel,
+                           CompletionHandler<Integer, Void> ch,
+                           AsyncTokenBucketRateLimiter rateLimiter) {
+        ReadWrite readWrite = new ReadWrite(sourceChannel, targetChannel, ch, rateLimiter);
         readWrite.read();
     }
 
@@ -56,7 +74,8 @@ public class ReadWrite {
                     size += result;
                     buf.flip();
                     log.info("Start write of {} bytes at position {}", result, filePosition);
-                    targetChannel.write(buf, filePosition, null, writeHandler);
+                    whenTokensAvailable(result,
+                            () -> tryRun(() -> targetChannel.write(buf, filePosition, null, writeHandler)));
                 }
             });
         }
@@ -87,6 +106,18 @@ public class ReadWrite {
         }
     };
 
+    /*
+     * Runs the action after acquiring the tokens for the given number of bytes, if there is a rate limiter.
+     */
+    private void whenTokensAvailable(int bytes, Runnable action) {
+        if (rateLimiter == null || bytes == 0) {
+            action.run();
+            return;
+        }
+        rateLimiter.acquireAsync(bytes, Long.MAX_VALUE, TimeUnit.MILLISECONDS)
+                .whenComplete((acquired, error) -> action.run());
+    }
+
     private void tryRun(Runnable runnable) {
         try {
             runnable.run();
@@ -2,12 +2,14 @@ package pt.isel.pc.examples.nio;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import pt.isel.pc.examples.limiters.AsyncTokenBucketRateLimiter;
 import pt.isel.pc.utils.CompositeThrowable;
 
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.AsynchronousSocketChannel;
 import java.nio.channels.CompletionHandler;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class ReadWriteParallel {
@@ -17,6 +19,8 @@ public class ReadWriteParallel {
     private final AsynchronousSocketChannel sourceChannel;
     private final AsynchronousFileChannel targetChannel;
     private final CompletionHandler<Integer, Void> ch;
+    // optional, limits the rate of written bytes
+    private final AsyncTokenBucketRateLimiter rateLimiter;
 
     private final ByteBuffer[] buffers = new ByteBuffer[]{
             ByteBuffer.allocate(8),
@@ -46,18 +50,32 @@ public class ReadWriteParallel {
     private ReadWriteParallel(
             AsynchronousSocketChannel sourceChannel,
             AsynchronousFileChannel targetChannel,
-            CompletionHandler<Integer, Void> ch
+            CompletionHandler<Integer, Void> ch,
+            AsyncTokenBucketRateLimiter rateLimiter
     ) {
 
         this.sourceChannel = sourceChannel;
         this.targetChannel = targetChannel;
         this.ch = ch;
+        this.rateLimiter = rateLimiter;
     }
 
     public static void run(AsynchronousSocketChannel sourceChannel,
                            AsynchronousFileChannel targetChannel,
                            CompletionHandler<Integer, Void> ch) {
-        ReadWriteParallel readWrite = new ReadWriteParallel(sourceChannel, targetChannel, ch);
+        run(sourceChannel, targetChannel, ch, null);
+    }
+
+    /**
+     * Same as {@link #run(AsynchronousSocketChannel, AsynchronousFileChannel, CompletionHandler)}, where each
+     * write first acquires one token per byte from the rate limiter, so its capacity must not be less than the
+     * buffer size.
+     */
+    public static void run(AsynchronousSocketChannel sourceChannel,
+                           AsynchronousFileChannel targetChannel,
+                           CompletionHandler<Integer, Void> ch,
+                           AsyncTokenBucketRateLimiter rateLimiter) {
+        ReadWriteParallel readWrite = new ReadWriteParallel(sourceChannel, targetChannel, ch, rateLimiter);
         readWrite.read();
     }
 
@@ -130,7 +148,7 @@ public class ReadWriteParallel {
         log.info("Starting next read");
         startRead();
         log.info("Starting next write");
-        startWrite();
+        whenTokensAvailable(buffers[getWriteBufferIx()].remaining(), this::startWrite);
     }
 
     private void startRead() {
@@ -154,6 +172,18 @@ public class ReadWriteParallel {
         }
     }
 
+    /*
+     * Runs the action after acquiring the tokens for the given number of bytes, if there is a rate limiter.
+     */
+    private void whenTokensAvailable(int bytes, Runnable action) {
+        if (rateLimiter == null || bytes == 0) {
+            action.run();
+            return;
+        }
+        rateLimiter.acquireAsync(bytes, Long.MAX_VALUE, TimeUnit.MILLISECONDS)
+                .whenComplete((acquired, error) -> action.run());
+    }
+
     private void tryRun(Runnable runnable) {
         try {
             runnable.run();
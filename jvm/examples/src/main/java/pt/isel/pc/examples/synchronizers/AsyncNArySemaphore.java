@@ -0,0 +1,194 @@
+package pt.isel.pc.examples.synchronizers;
+
+import pt.isel.pc.utils.Deadline;
+import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.TimerWheel;
+import pt.isel.pc.utils.Timeouts;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * N-ary semaphore with FIFO policy and an asynchronous acquisition interface, i.e., the acquisition
+ * never blocks the calling thread and instead returns a future that completes with
+ * {@code true} when the units are acquired or with {@code false} when the timeout is reached.
+ * Cancelling the returned future gives up the acquisition.
+ * It uses kernel-style notification: a release removes the satisfied requests from the queue and
+ * completes their futures.
+ * The futures are always completed outside the lock, so their continuations run without holding it.
+ * The timeouts are scheduled on a {@link TimerWheel}, where both scheduling and cancelling are O(1),
+ * so a large number of pending requests doesn't need a large number of scheduled tasks.
+ * Based on the .NET {@code AsyncSemaphore} example.
+ */
+public class AsyncNArySemaphore {
+
+    /**
+     * Represents a pending acquisition request, which is also the future returned to the caller.
+     */
+    private class Request extends CompletableFuture<Boolean> {
+        final int units;
+        NodeLinkedList.Node<Request> node;
+        // null for infinite timeouts
+        TimerWheel.Timeout timeout;
+        // only accessed while holding the lock
+        boolean isDone = false;
+
+        Request(int units) {
+            this.units = units;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                tryCancel(this);
+            }
+            return cancelled;
+        }
+
+        // Futures derived from this one (e.g. using thenApply) are plain CompletableFutures
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new CompletableFuture<>();
+        }
+    }
+
+    private int units;
+    private final NodeLinkedList<Request> queue = new NodeLinkedList<>();
+    private final Lock monitor = new ReentrantLock();
+
+    private final TimerWheel timer;
+
+    public AsyncNArySemaphore(int initialUnits) {
+        this(initialUnits, TimerWheel.getDefault());
+    }
+
+    public AsyncNArySemaphore(int initialUnits, TimerWheel timer) {
+        this.units = initialUnits;
+        this.timer = timer;
+    }
+
+    public CompletableFuture<Boolean> acquireAsync(int requestedUnits, long timeout, TimeUnit timeUnit) {
+        monitor.lock();
+        try {
+            // fast-path
+            if (queue.isEmpty() && units >= requestedUnits) {
+                units -= requestedUnits;
+                return CompletableFuture.completedFuture(true);
+            }
+
+            if (Timeouts.noWait(timeout)) {
+                return CompletableFuture.completedFuture(false);
+            }
+
+            // async-path
+            Request request = new Request(requestedUnits);
+            request.node = queue.enqueue(request);
+            if (!Deadline.isInfinite(timeout, timeUnit)) {
+                request.timeout = timer.schedule(() -> onTimeout(request), timeout, timeUnit);
+            }
+            return request;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    public void release(int releasedUnits) {
+        List<Request> requestsToComplete;
+        monitor.lock();
+        try {
+            units += releasedUnits;
+            requestsToComplete = releaseAllPossible();
+        } finally {
+            monitor.unlock();
+        }
+        completeAll(requestsToComplete);
+    }
+
+    /*
+     * Removes all the queued requests that can be satisfied, updating the available units.
+     * It does not complete the futures, because it is called while holding the lock.
+     */
+    private List<Request> releaseAllPossible() {
+        List<Request> requestsToComplete = null;
+        while (queue.isNotEmpty() && units >= queue.getHeadValue().units) {
+            Request request = queue.pull().value;
+            units -= request.units;
+            request.isDone = true;
+            if (requestsToComplete == null) {
+                requestsToComplete = new LinkedList<>();
+            }
+            requestsToComplete.add(request);
+        }
+        return requestsToComplete;
+    }
+
+    /*
+     * Must be called without holding the lock.
+     */
+    private void completeAll(List<Request> requestsToComplete) {
+        if (requestsToComplete == null) {
+            return;
+        }
+        for (Request request : requestsToComplete) {
+            cancelTimeout(request);
+            if (!request.complete(true)) {
+                // The future was cancelled concurrently with the acquisition,
+                // so the units must be given back.
+                release(request.units);
+            }
+        }
+    }
+
+    /*
+     * Called when a future is cancelled. The cancellation only takes effect if the request is still queued.
+     */
+    private void tryCancel(Request request) {
+        List<Request> requestsToComplete;
+        monitor.lock();
+        try {
+            if (request.isDone) {
+                return;
+            }
+            queue.remove(request.node);
+            request.isDone = true;
+            requestsToComplete = releaseAllPossible();
+        } finally {
+            monitor.unlock();
+        }
+        cancelTimeout(request);
+        completeAll(requestsToComplete);
+    }
+
+    private static void cancelTimeout(Request request) {
+        if (request.timeout != null) {
+            request.timeout.cancel();
+        }
+    }
+
+    /*
+     * Called by the timer when the request's timeout expires.
+     * The timeout only takes effect if the request is still queued.
+     */
+    private void onTimeout(Request request) {
+        List<Request> requestsToComplete;
+        monitor.lock();
+        try {
+            if (request.isDone) {
+                return;
+            }
+            queue.remove(request.node);
+            request.isDone = true;
+            // removing a request may allow the following ones to be satisfied
+            requestsToComplete = releaseAllPossible();
+        } finally {
+            monitor.unlock();
+        }
+        request.complete(false);
+        completeAll(requestsToComplete);
+    }
+}
@@ -0,0 +1,163 @@
+package pt.isel.pc.examples.synchronizers;
+
+import pt.isel.pc.utils.Deadline;
+import pt.isel.pc.utils.Timeouts;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Manual reset event without locks, with the same guarantee as
+ * {@link pt.isel.pc.demos.li51n.synchronizers.ManualResetEvent2}: a thread waiting when {@link #set()} is called
+ * always returns {@code true}, even if {@link #reset()} is called immediately after.
+ * <ul>
+ *     <li>The state is a single atomic word with the flag on the lowest bit and a generation number on the
+ *     remaining bits, which {@link #set()} increments. So, {@link #waitSet} on a set event is a single
+ *     volatile read.</li>
+ *     <li>A waiting thread remembers the generation observed before waiting, and returns {@code true} when it
+ *     changes, i.e., when there was a {@link #set()} since it started waiting, independently of the flag.</li>
+ *     <li>The waiting threads park after pushing a node to a lock-free stack, which {@link #set()} removes
+ *     as a whole and unparks all its threads. Since a thread always checks the generation after pushing its
+ *     node, it either sees the {@link #set()} or is unparked by it.</li>
+ * </ul>
+ * The nodes of threads that give up are unlinked from the stack as in {@link java.util.concurrent.FutureTask}.
+ */
+public class LockFreeManualResetEvent {
+
+    private static final long FLAG = 1;
+    private static final long ONE_GENERATION = 2;
+
+    private static class Node {
+        volatile Thread thread = Thread.currentThread();
+        volatile Node next;
+    }
+
+    private final AtomicLong state = new AtomicLong(0);
+    private final AtomicReference<Node> waiters = new AtomicReference<>(null);
+
+    public LockFreeManualResetEvent() {
+    }
+
+    public LockFreeManualResetEvent(boolean initialState) {
+        state.set(initialState ? FLAG : 0);
+    }
+
+    public boolean isSet() {
+        return (state.get() & FLAG) != 0;
+    }
+
+    // sets the flag to true and ensures all threads waiting on waitSet return true
+    public void set() {
+        long observed;
+        do {
+            observed = state.get();
+            if ((observed & FLAG) != 0) {
+                return;
+            }
+        } while (!state.compareAndSet(observed, (observed + ONE_GENERATION) | FLAG));
+
+        Node node = waiters.getAndSet(null);
+        while (node != null) {
+            Thread thread = node.thread;
+            if (thread != null) {
+                node.thread = null;
+                LockSupport.unpark(thread);
+            }
+            node = node.next;
+        }
+    }
+
+    // sets the flag to false
+    public void reset() {
+        long observed;
+        do {
+            observed = state.get();
+            if ((observed & FLAG) == 0) {
+                return;
+            }
+        } while (!state.compareAndSet(observed, observed & ~FLAG));
+    }
+
+    // waits until the flag is true
+    public boolean waitSet(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        // fast-path
+        long observed = state.get();
+        if ((observed & FLAG) != 0) {
+            return true;
+        }
+
+        if (Timeouts.noWait(timeout)) {
+            return false;
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+
+        // wait-path
+        final long generation = observed & ~FLAG;
+        Deadline deadline = Deadline.after(timeout, timeUnit);
+        Node node = new Node();
+        Node observedHead;
+        do {
+            observedHead = waiters.get();
+            node.next = observedHead;
+        } while (!waiters.compareAndSet(observedHead, node));
+
+        while (true) {
+            if (hasGenerationChanged(generation)) {
+                removeWaiter(node);
+                return true;
+            }
+            long remaining = deadline.remainingNanos();
+            if (Timeouts.isTimeout(remaining)) {
+                removeWaiter(node);
+                return false;
+            }
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                removeWaiter(node);
+                if (hasGenerationChanged(generation)) {
+                    // too late to give up!
+                    Thread.currentThread().interrupt();
+                    return true;
+                }
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private boolean hasGenerationChanged(long generation) {
+        return (state.get() & ~FLAG) != generation;
+    }
+
+    /*
+     * Unlinks the node, and any other node whose thread already left, from the stack.
+     * Like in FutureTask, it restarts the traversal when it races with another removal.
+     */
+    private void removeWaiter(Node node) {
+        node.thread = null;
+        retry:
+        while (true) {
+            Node pred = null;
+            Node current = waiters.get();
+            while (current != null) {
+                Node next = current.next;
+                if (current.thread != null) {
+                    pred = current;
+                } else if (pred != null) {
+                    pred.next = next;
+                    if (pred.thread == null) {
+                        // pred was also removed concurrently
+                        continue retry;
+                    }
+                } else if (!waiters.compareAndSet(current, next)) {
+                    continue retry;
+                }
+                current = next;
+            }
+            return;
+        }
+    }
+}
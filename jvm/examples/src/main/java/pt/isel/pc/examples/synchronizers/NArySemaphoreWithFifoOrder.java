@@ -1,6 +1,7 @@
 package pt.isel.pc.examples.synchronizers;
 
 import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
 import java.util.concurrent.TimeUnit;
@@ -39,11 +40,11 @@ public class NArySemaphoreWithFifoOrder implements NArySemaphore{
                 return false;
             }
             NodeLinkedList.Node<Request> request = queue.enqueue(new Request(requestedUnits));
-            long deadline = Timeouts.start(timeout, timeUnit);
-            long remaining = Timeouts.remaining(deadline);
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
             while (true) {
                 try {
-                    lock.wait(remaining);
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
                 } catch (InterruptedException e) {
                     queue.remove(request);
                     notifyIfNeeded();
@@ -55,7 +56,7 @@ public class NArySemaphoreWithFifoOrder implements NArySemaphore{
                     notifyIfNeeded();
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     queue.remove(request);
                     notifyIfNeeded();
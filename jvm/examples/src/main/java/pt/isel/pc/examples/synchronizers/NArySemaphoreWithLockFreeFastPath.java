@@ -0,0 +1,163 @@
+package pt.isel.pc.examples.synchronizers;
+
+import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.Deadline;
+import pt.isel.pc.utils.Timeouts;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * N-ary semaphore with FIFO policy and kernel-style notification, such as {@link NArySemaphoreUsingKernelStyle},
+ * where acquisitions and releases that don't need to wait or to notify are done with a single CAS,
+ * without acquiring the lock.
+ * The available units and the number of waiting threads are kept on the same atomic word, so that
+ * checking for waiters and updating the units is a single atomic operation.
+ * While there are waiting threads, the units are only changed while holding the lock.
+ */
+public class NArySemaphoreWithLockFreeFastPath implements NArySemaphore {
+
+    static class Request {
+        final int units;
+        final Condition condition;
+        boolean isDone = false;
+
+        Request(int units, Condition condition) {
+
+            this.units = units;
+            this.condition = condition;
+        }
+    }
+
+    // The high 32 bits contain the number of waiters and the low 32 bits contain the units
+    private final AtomicLong state;
+    private static final long ONE_WAITER = 1L << 32;
+
+    private final NodeLinkedList<Request> queue = new NodeLinkedList<>();
+    private final Lock monitor = new ReentrantLock();
+
+    public NArySemaphoreWithLockFreeFastPath(int initialUnits) {
+        if (initialUnits < 0) {
+            throw new IllegalArgumentException("initialUnits must not be negative");
+        }
+        this.state = new AtomicLong(initialUnits);
+    }
+
+    public boolean acquire(int requestedUnits, long timeout, TimeUnit timeUnit) throws InterruptedException {
+
+        // fast-path, without acquiring the lock
+        if (tryAcquire(requestedUnits)) {
+            return true;
+        }
+
+        if (Timeouts.noWait(timeout)) {
+            return false;
+        }
+
+        monitor.lock();
+        try {
+            // The waiters may have left in the meanwhile, so either acquire or register as a waiter,
+            // atomically
+            while (true) {
+                long observed = state.get();
+                if (waiters(observed) == 0 && units(observed) >= requestedUnits) {
+                    if (state.compareAndSet(observed, observed - requestedUnits)) {
+                        return true;
+                    }
+                } else if (state.compareAndSet(observed, observed + ONE_WAITER)) {
+                    break;
+                }
+            }
+
+            // wait-path
+            final Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
+            Condition threadCondition = monitor.newCondition();
+            NodeLinkedList.Node<Request> localRequest = queue.enqueue(
+                    new Request(requestedUnits, threadCondition));
+            while (true) {
+                try {
+                    threadCondition.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    if (localRequest.value.isDone) {
+                        // too late to give up!
+                        Thread.currentThread().interrupt();
+                        return true;
+                    }
+                    giveUp(localRequest);
+                    throw e;
+                }
+                if (localRequest.value.isDone) {
+                    return true;
+                }
+                remaining = deadline.remainingNanos();
+                if (Timeouts.isTimeout(remaining)) {
+                    giveUp(localRequest);
+                    return false;
+                }
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    public void release(int releasedUnits) {
+
+        // fast-path, without acquiring the lock, when there isn't anyone to notify
+        while (true) {
+            long observed = state.get();
+            if (waiters(observed) != 0) {
+                break;
+            }
+            if (state.compareAndSet(observed, observed + releasedUnits)) {
+                return;
+            }
+        }
+
+        monitor.lock();
+        try {
+            state.addAndGet(releasedUnits);
+            notifyIfNeeded();
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    private boolean tryAcquire(int requestedUnits) {
+        long observed;
+        do {
+            observed = state.get();
+            if (waiters(observed) != 0 || units(observed) < requestedUnits) {
+                return false;
+            }
+        } while (!state.compareAndSet(observed, observed - requestedUnits));
+        return true;
+    }
+
+    private void giveUp(NodeLinkedList.Node<Request> localRequest) {
+        queue.remove(localRequest);
+        state.addAndGet(-ONE_WAITER);
+        notifyIfNeeded();
+    }
+
+    // Must be called while holding the lock
+    private void notifyIfNeeded() {
+        while (queue.isNotEmpty() && units(state.get()) >= queue.getHeadValue().units) {
+            NodeLinkedList.Node<Request> node = queue.pull();
+            state.addAndGet(-node.value.units - ONE_WAITER);
+            node.value.isDone = true;
+            node.value.condition.signal();
+        }
+    }
+
+    private static int units(long state) {
+        return (int) state;
+    }
+
+    private static int waiters(long state) {
+        return (int) (state >>> 32);
+    }
+}
@@ -1,6 +1,7 @@
 package pt.isel.pc.examples.synchronizers;
 
 import pt.isel.pc.utils.NodeLinkedList;
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
 import java.util.concurrent.TimeUnit;
@@ -43,14 +44,14 @@ public class NArySemaphoreWithSpecificNotification implements NArySemaphore{
                 return false;
             }
 
-            final long deadline = Timeouts.start(timeout, timeUnit);
-            long remaining = Timeouts.remaining(deadline);
+            final Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
             Condition threadCondition = monitor.newCondition();
             NodeLinkedList.Node<Request> localRequest = queue.enqueue(
                     new Request(requestedUnits, threadCondition));
             while (true) {
                 try {
-                    threadCondition.await(remaining, TimeUnit.MILLISECONDS);
+                    threadCondition.awaitNanos(remaining);
                 } catch (InterruptedException e) {
                     queue.remove(localRequest);
                     notifyIfNeeded();
@@ -62,7 +63,7 @@ public class NArySemaphoreWithSpecificNotification implements NArySemaphore{
                     notifyIfNeeded();
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     queue.remove(localRequest);
                     notifyIfNeeded();
@@ -0,0 +1,141 @@
+package pt.isel.pc.examples.synchronizers;
+
+import pt.isel.pc.utils.Deadline;
+import pt.isel.pc.utils.Timeouts;
+import pt.isel.pc.utils.Waiter;
+import pt.isel.pc.utils.WaiterQueue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * N-ary semaphore with FIFO policy and kernel-style notification, such as {@link NArySemaphoreUsingKernelStyle},
+ * where the total number of units (the limit) can be changed at runtime.
+ * Growing the limit makes the new units available, so the queued requests are notified.
+ * Shrinking the limit doesn't revoke the units already acquired: the available units may become negative
+ * and the new acquisitions wait until enough units are released.
+ */
+public class ResizableNArySemaphore implements NArySemaphore {
+
+    private int limit;
+    // may be negative after shrinking the limit
+    private int available;
+    private final WaiterQueue queue = new WaiterQueue();
+    private final Lock monitor = new ReentrantLock();
+
+    public ResizableNArySemaphore(int initialLimit) {
+        if (initialLimit < 0) {
+            throw new IllegalArgumentException("initialLimit must not be negative");
+        }
+        this.limit = initialLimit;
+        this.available = initialLimit;
+    }
+
+    public boolean acquire(int requestedUnits, long timeout, TimeUnit timeUnit) throws InterruptedException {
+
+        monitor.lock();
+        try {
+            // fast-path
+            if (queue.isEmpty() && available >= requestedUnits) {
+                available -= requestedUnits;
+                return true;
+            }
+
+            if (Timeouts.noWait(timeout)) {
+                return false;
+            }
+
+            // wait-path
+            final Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
+            Waiter localRequest = Waiter.prepare();
+            localRequest.units = requestedUnits;
+            queue.enqueue(localRequest);
+            while (true) {
+                try {
+                    localRequest.awaitNanos(monitor, remaining);
+                } catch (InterruptedException e) {
+                    if (localRequest.isDone) {
+                        // too late to give up!
+                        Thread.currentThread().interrupt();
+                        return true;
+                    }
+                    queue.remove(localRequest);
+                    notifyIfNeeded();
+                    throw e;
+                }
+                if (localRequest.isDone) {
+                    return true;
+                }
+                remaining = deadline.remainingNanos();
+                if (Timeouts.isTimeout(remaining)) {
+                    queue.remove(localRequest);
+                    notifyIfNeeded();
+                    return false;
+                }
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    public void release(int releasedUnits) {
+        monitor.lock();
+        try {
+            available += releasedUnits;
+            notifyIfNeeded();
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * Changes the total number of units.
+     *
+     * @param newLimit the new limit, which must not be negative.
+     */
+    public void setLimit(int newLimit) {
+        if (newLimit < 0) {
+            throw new IllegalArgumentException("newLimit must not be negative");
+        }
+        monitor.lock();
+        try {
+            available += newLimit - limit;
+            limit = newLimit;
+            notifyIfNeeded();
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    public int getLimit() {
+        monitor.lock();
+        try {
+            return limit;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of acquired units, which may be greater than the limit after shrinking it.
+     */
+    public int getAcquiredUnits() {
+        monitor.lock();
+        try {
+            return limit - available;
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    private void notifyIfNeeded() {
+        while (queue.isNotEmpty() && available >= queue.getHead().units) {
+            Waiter waiter = queue.pull();
+            available -= waiter.units;
+            waiter.isDone = true;
+            waiter.signal();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package pt.isel.pc.examples.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
 import java.util.concurrent.TimeUnit;
@@ -29,15 +30,15 @@ public class SimpleNArySemaphoreV0 implements NArySemaphore{
             if (Timeouts.noWait(timeout)) {
                 return false;
             }
-            long deadline = Timeouts.start(timeout, timeUnit);
-            long remaining = Timeouts.remaining(deadline);
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
             while (true) {
-                lock.wait(remaining);
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
                 if (units >= requestedUnits) {
                     units -= requestedUnits;
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     return false;
                 }
@@ -1,5 +1,6 @@
 package pt.isel.pc.examples.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
 import java.util.concurrent.TimeUnit;
@@ -9,7 +10,7 @@ import java.util.concurrent.TimeUnit;
  * {@link SimpleUnarySemaphoreV0#release} method. This algorithm is not efficient and can be improved,
  * since it produces unneeded context switches when there are multiple threads waiting on the condition.
  */
-public class SimpleUnarySemaphoreV0 {
+public class SimpleUnarySemaphoreV0 implements UnarySemaphore {
 
     // The shared semaphore units
     private int units;
@@ -33,12 +34,12 @@ public class SimpleUnarySemaphoreV0 {
                 return false;
             }
             // compute deadline and remaining time
-            long deadline = Timeouts.start(timeout, timeUnit);
-            long remaining = Timeouts.remaining(deadline);
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
 
             while (true) {
                 // wait
-                lock.wait(remaining);
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
 
                 // note that there is an quit path via the
                 // InterruptedException1
@@ -49,7 +50,7 @@ public class SimpleUnarySemaphoreV0 {
                     return true;
                 }
                 // recompute remaining time
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
 
                 // Quit if deadline reached
                 if (Timeouts.isTimeout(remaining)) {
@@ -1,5 +1,6 @@
 package pt.isel.pc.examples.synchronizers;
 
+import pt.isel.pc.utils.Deadline;
 import pt.isel.pc.utils.Timeouts;
 
 import java.util.concurrent.TimeUnit;
@@ -30,11 +31,11 @@ public class SimpleUnarySemaphoreV1 implements UnarySemaphore{
             if (Timeouts.noWait(timeout)) {
                 return false;
             }
-            long deadline = Timeouts.start(timeout, timeUnit);
-            long remaining = Timeouts.remaining(deadline);
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
             while (true) {
                 try {
-                    lock.wait(remaining);
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
                 } catch (InterruptedException e) {
                     if (units > 0) {
                         lock.notify();
@@ -45,7 +46,7 @@ public class SimpleUnarySemaphoreV1 implements UnarySemaphore{
                     units -= 1;
                     return true;
                 }
-                remaining = Timeouts.remaining(deadline);
+                remaining = deadline.remainingNanos();
                 if (Timeouts.isTimeout(remaining)) {
                     return false;
                 }
@@ -0,0 +1,215 @@
+package pt.isel.pc.examples.synchronizers;
+
+import pt.isel.pc.utils.Deadline;
+import pt.isel.pc.utils.Timeouts;
+import pt.isel.pc.utils.Waiter;
+import pt.isel.pc.utils.WaiterQueue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * N-ary semaphore where the units are split across cells, one per core by default, so that
+ * threads running on different cores acquire and release units without writing to the same cache line.
+ * <ul>
+ *     <li>While there are no waiting threads, an acquisition takes the units from the thread's home cell,
+ *     or steals them from another cell, and a release adds the units to the home cell.</li>
+ *     <li>When no single cell has enough units, the acquisition takes the lock, moves the units of all
+ *     the cells to the central pool and, if they aren't enough, waits on a global FIFO queue, using
+ *     kernel-style notification.</li>
+ *     <li>While there are waiting threads, all acquisitions and releases are done on the central pool,
+ *     while holding the lock. When the last waiter leaves, the remaining units go back to a cell.</li>
+ * </ul>
+ * A release adds the units to its cell before checking if there are waiters, and a thread starting to wait
+ * increments the number of waiters before draining the cells, so at least one of them sees the other and
+ * the units are never left on a cell while a thread waits for them.
+ */
+public class StripedNArySemaphore implements NArySemaphore {
+
+    // Distance between cells, so that each cell is on a different cache line,
+    // including the adjacent line fetched by the spatial prefetcher (2 * 64 bytes)
+    private static final int CELL_STRIDE = 16;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    // The central pool, only used while holding the lock
+    private long units = 0;
+    private final WaiterQueue queue = new WaiterQueue();
+    private final Lock monitor = new ReentrantLock();
+
+    public StripedNArySemaphore(int initialUnits) {
+        this(initialUnits, Runtime.getRuntime().availableProcessors());
+    }
+
+    public StripedNArySemaphore(int initialUnits, int nOfCells) {
+        if (initialUnits < 0) {
+            throw new IllegalArgumentException("initialUnits must not be negative");
+        }
+        if (nOfCells <= 0) {
+            throw new IllegalArgumentException("nOfCells must be positive");
+        }
+        int size = Math.max(Integer.highestOneBit(nOfCells - 1) << 1, 1);
+        mask = size - 1;
+        cells = new AtomicLongArray(size * CELL_STRIDE);
+        for (int i = 0; i < size; ++i) {
+            cells.set(i * CELL_STRIDE, initialUnits / size + (i < initialUnits % size ? 1 : 0));
+        }
+    }
+
+    public boolean acquire(int requestedUnits, long timeout, TimeUnit timeUnit) throws InterruptedException {
+
+        // fast-path, without acquiring the lock
+        if (waiters.get() == 0 && tryAcquireFromCells(requestedUnits)) {
+            return true;
+        }
+
+        monitor.lock();
+        try {
+            // from now on, the releases are done on the central pool
+            waiters.incrementAndGet();
+            drainCells();
+            if (queue.isEmpty() && units >= requestedUnits) {
+                units -= requestedUnits;
+                waiters.decrementAndGet();
+                returnUnitsIfNoWaiters();
+                return true;
+            }
+
+            if (Timeouts.noWait(timeout)) {
+                waiters.decrementAndGet();
+                returnUnitsIfNoWaiters();
+                return false;
+            }
+
+            // wait-path
+            Deadline deadline = Deadline.after(timeout, timeUnit);
+            long remaining = deadline.remainingNanos();
+            Waiter localRequest = Waiter.prepare();
+            localRequest.units = requestedUnits;
+            queue.enqueue(localRequest);
+            while (true) {
+                try {
+                    localRequest.awaitNanos(monitor, remaining);
+                } catch (InterruptedException e) {
+                    if (localRequest.isDone) {
+                        // too late to give up!
+                        Thread.currentThread().interrupt();
+                        return true;
+                    }
+                    giveUp(localRequest);
+                    throw e;
+                }
+                if (localRequest.isDone) {
+                    return true;
+                }
+                remaining = deadline.remainingNanos();
+                if (Timeouts.isTimeout(remaining)) {
+                    giveUp(localRequest);
+                    return false;
+                }
+            }
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    public void release(int releasedUnits) {
+
+        // fast-path, without acquiring the lock
+        if (waiters.get() == 0) {
+            cells.getAndAdd(homeCell(), releasedUnits);
+            if (waiters.get() == 0) {
+                return;
+            }
+            // a thread started to wait and may not have seen the released units,
+            // so they are moved to the central pool below
+            releasedUnits = 0;
+        }
+
+        monitor.lock();
+        try {
+            units += releasedUnits;
+            drainCells();
+            notifyIfNeeded();
+            returnUnitsIfNoWaiters();
+        } finally {
+            monitor.unlock();
+        }
+    }
+
+    private int homeCell() {
+        long id = Thread.currentThread().getId();
+        return (Long.hashCode(id * 0x9E3779B97F4A7C15L) & mask) * CELL_STRIDE;
+    }
+
+    /*
+     * Tries to take the units from the home cell and then from the other cells, with a CAS on a single cell.
+     */
+    private boolean tryAcquireFromCells(int requestedUnits) {
+        int home = homeCell();
+        for (int i = 0; i <= mask; ++i) {
+            int cell = (home + i * CELL_STRIDE) & (mask * CELL_STRIDE);
+            while (true) {
+                long observed = cells.get(cell);
+                if (observed < requestedUnits) {
+                    break;
+                }
+                if (cells.compareAndSet(cell, observed, observed - requestedUnits)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Moves the units of all cells to the central pool.
+     */
+    private void drainCells() {
+        for (int i = 0; i <= mask; ++i) {
+            units += cells.getAndSet(i * CELL_STRIDE, 0);
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * Removes a waiter that timed out or was interrupted.
+     */
+    private void giveUp(Waiter localRequest) {
+        queue.remove(localRequest);
+        waiters.decrementAndGet();
+        notifyIfNeeded();
+        returnUnitsIfNoWaiters();
+    }
+
+    /*
+     * Must be called while holding the lock.
+     */
+    private void notifyIfNeeded() {
+        while (queue.isNotEmpty() && units >= queue.getHead().units) {
+            Waiter waiter = queue.pull();
+            units -= waiter.units;
+            waiters.decrementAndGet();
+            waiter.isDone = true;
+            waiter.signal();
+        }
+    }
+
+    /*
+     * Must be called while holding the lock.
+     * When there are no more waiters, the central pool units go back to the home cell,
+     * to be used by the fast-path.
+     */
+    private void returnUnitsIfNoWaiters() {
+        if (waiters.get() == 0 && units > 0) {
+            cells.getAndAdd(homeCell(), units);
+            units = 0;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package pt.isel.pc.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Specialization of {@link AtomicState} for a state with two {@code int} fields, packed on a single
+ * {@code long}: the first field on the high 32 bits and the second on the low 32 bits.
+ * Since the state is a value, the updates don't allocate, and there is no need for immutable state objects.
+ */
+public final class AtomicIntPair {
+
+    @FunctionalInterface
+    public interface Invariant {
+        boolean test(int first, int second);
+    }
+
+    /**
+     * Computes the new state from the current one, returning it packed with {@link #pack(int, int)}.
+     */
+    @FunctionalInterface
+    public interface Update {
+        long apply(int first, int second);
+    }
+
+    private final AtomicLong state;
+    private final Invariant invariant;
+
+    public AtomicIntPair(int first, int second) {
+        this(first, second, (f, s) -> true);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the initial state doesn't satisfy the invariant.
+     */
+    public AtomicIntPair(int first, int second, Invariant invariant) {
+        this.invariant = invariant;
+        checkInvariant(first, second);
+        this.state = new AtomicLong(pack(first, second));
+    }
+
+    public static long pack(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    public static int first(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    public static int second(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Returns both fields, packed, from the same state.
+     */
+    public long get() {
+        return state.get();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the new state doesn't satisfy the invariant.
+     */
+    public void set(int first, int second) {
+        checkInvariant(first, second);
+        state.set(pack(first, second));
+    }
+
+    /**
+     * Same as {@link AtomicState#updateAndGet}: the function may be called more than once, may throw to
+     * reject the transition, and returning the same state doesn't write.
+     *
+     * @return the new state, packed.
+     * @throws IllegalArgumentException if the new state doesn't satisfy the invariant, leaving the state unchanged.
+     */
+    public long updateAndGet(Update update) {
+        while (true) {
+            long observed = state.get();
+            long newState = update.apply(first(observed), second(observed));
+            if (newState == observed) {
+                return observed;
+            }
+            checkInvariant(first(newState), second(newState));
+            if (state.compareAndSet(observed, newState)) {
+                return newState;
+            }
+        }
+    }
+
+    private void checkInvariant(int first, int second) {
+        if (!invariant.test(first, second)) {
+            throw new IllegalArgumentException("invalid state: (" + first + ", " + second + ")");
+        }
+    }
+}
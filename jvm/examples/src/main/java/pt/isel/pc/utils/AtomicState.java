@@ -0,0 +1,97 @@
+package pt.isel.pc.utils;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lock-free holder of a state with multiple fields and an invariant between them, such as a range's
+ * minimum and maximum.
+ * The state is an object replaced as a whole with a CAS, so every update is computed from, and validated
+ * against, the state it replaces.
+ * A state must not be changed once published, i.e. once passed to the constructor or to {@link #set},
+ * returned by the function given to {@link #updateAndGet}, or given to a successful {@link #compareAndSet}.
+ * Before that, a candidate state may be changed, so that a caller writing its own retry loop with
+ * {@link #compareAndSet} can reuse the same candidate across the retries, instead of allocating one per
+ * retry (see Range).
+ * When the fields fit in 64 bits, {@link AtomicIntPair} does the same without allocating the states.
+ *
+ * @param <S> the state type, whose instances must not be changed once published.
+ */
+public final class AtomicState<S> {
+
+    private final AtomicReference<S> state;
+    private final Predicate<? super S> invariant;
+
+    public AtomicState(S initialState) {
+        this(initialState, s -> true);
+    }
+
+    /**
+     * @param initialState the initial state.
+     * @param invariant    the condition that every state must satisfy.
+     * @throws IllegalArgumentException if the initial state doesn't satisfy the invariant.
+     */
+    public AtomicState(S initialState, Predicate<? super S> invariant) {
+        this.invariant = invariant;
+        checkInvariant(initialState);
+        this.state = new AtomicReference<>(initialState);
+    }
+
+    public S get() {
+        return state.get();
+    }
+
+    /**
+     * Replaces the state, independently of the current one.
+     *
+     * @throws IllegalArgumentException if the new state doesn't satisfy the invariant.
+     */
+    public void set(S newState) {
+        checkInvariant(newState);
+        state.set(newState);
+    }
+
+    /**
+     * Replaces the state with the result of applying {@code update} to it, retrying if the state was changed
+     * concurrently. So, the function may be called more than once and must not have side effects.
+     * The function may also validate the transition, throwing an exception to reject it, or return the
+     * same state to leave it unchanged, without writing.
+     *
+     * @return the new state.
+     * @throws IllegalArgumentException if the new state doesn't satisfy the invariant, leaving the state unchanged.
+     */
+    public S updateAndGet(UnaryOperator<S> update) {
+        while (true) {
+            S observed = state.get();
+            S newState = update.apply(observed);
+            if (newState == observed) {
+                return observed;
+            }
+            checkInvariant(newState);
+            if (state.compareAndSet(observed, newState)) {
+                return newState;
+            }
+        }
+    }
+
+    /**
+     * Replaces the state only if it is still {@code expected}, for callers that write their own retry loop,
+     * e.g. to reuse the same candidate state across retries instead of allocating one per retry.
+     * The new state is published, and so must not be changed anymore, only if this method returns
+     * {@code true}; otherwise the caller may change it and retry.
+     *
+     * @return {@code true} if replaced, {@code false} if the state was changed concurrently.
+     * @throws IllegalArgumentException if the new state doesn't satisfy the invariant, leaving the state unchanged.
+     */
+    public boolean compareAndSet(S expected, S newState) {
+        checkInvariant(newState);
+        return state.compareAndSet(expected, newState);
+    }
+
+    private void checkInvariant(S newState) {
+        if (!invariant.test(newState)) {
+            throw new IllegalArgumentException("invalid state: " + newState);
+        }
+    }
+}
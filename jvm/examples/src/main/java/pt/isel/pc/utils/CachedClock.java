@@ -0,0 +1,39 @@
+package pt.isel.pc.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link System#nanoTime()} value periodically refreshed by a single daemon thread, so that reading
+ * the time is just a volatile read.
+ * The value lags behind the real clock by up to {@link #RESOLUTION_NANOS}, plus the refresher's scheduling delay,
+ * but it is still monotonic.
+ * The refresher thread is only started when this class is first used.
+ */
+public final class CachedClock {
+
+    public static final long RESOLUTION_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static volatile long now = System.nanoTime();
+
+    static {
+        Thread refresher = new Thread(CachedClock::refresh, "cached-clock");
+        refresher.setDaemon(true);
+        refresher.start();
+    }
+
+    private CachedClock() {
+        // static class
+    }
+
+    public static long nanoTime() {
+        return now;
+    }
+
+    private static void refresh() {
+        while (true) {
+            LockSupport.parkNanos(RESOLUTION_NANOS);
+            now = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package pt.isel.pc.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable point in time, used to compute the remaining time of a timed wait.
+ * Unlike {@link Timeouts}, it uses the monotonic {@link System#nanoTime()} clock, so wall-clock adjustments
+ * don't stretch or cut the waits, and it keeps nanosecond precision.
+ * The remaining time should be used with {@link java.util.concurrent.locks.Condition#awaitNanos(long)},
+ * {@link java.util.concurrent.locks.LockSupport#parkNanos(long)} or {@link TimeUnit#timedWait(Object, long)}.
+ */
+public final class Deadline implements Comparable<Deadline> {
+
+    // Durations above this value (~146 years) are considered infinite, so that the sum never overflows
+    private static final long INFINITE_NANOS = Long.MAX_VALUE / 2;
+
+    private final long deadline;
+    private final boolean isInfinite;
+    private final boolean usesCachedClock;
+
+    private Deadline(long deadline, boolean isInfinite, boolean usesCachedClock) {
+        this.deadline = deadline;
+        this.isInfinite = isInfinite;
+        this.usesCachedClock = usesCachedClock;
+    }
+
+    /**
+     * Returns the deadline for a timeout starting now.
+     *
+     * @param duration the timeout duration.
+     * @param timeUnit the duration unit.
+     * @return the deadline for the timeout.
+     */
+    public static Deadline after(long duration, TimeUnit timeUnit) {
+        return create(timeUnit.toNanos(duration), System.nanoTime(), false);
+    }
+
+    /**
+     * Same as {@link #after(long, TimeUnit)} but using {@link CachedClock}, which avoids reading the clock
+     * on every computation of the remaining time, at the cost of a precision of {@link CachedClock#RESOLUTION_NANOS}.
+     * Intended for very hot timed paths.
+     */
+    public static Deadline afterUsingCachedClock(long duration, TimeUnit timeUnit) {
+        return create(timeUnit.toNanos(duration), CachedClock.nanoTime(), true);
+    }
+
+    private static Deadline create(long nanos, long now, boolean usesCachedClock) {
+        boolean isInfinite = nanos >= INFINITE_NANOS;
+        return new Deadline(isInfinite ? now : now + nanos, isInfinite, usesCachedClock);
+    }
+
+    /**
+     * Returns the amount of nanoseconds remaining until the deadline, which is zero or negative if the
+     * deadline was already reached, and {@link Long#MAX_VALUE} for infinite durations.
+     */
+    public long remainingNanos() {
+        if (isInfinite) {
+            return Long.MAX_VALUE;
+        }
+        return deadline - (usesCachedClock ? CachedClock.nanoTime() : System.nanoTime());
+    }
+
+    public long remaining(TimeUnit timeUnit) {
+        return timeUnit.convert(remainingNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isInfinite() {
+        return isInfinite;
+    }
+
+    /**
+     * Checks if a timeout with the given duration is considered infinite, i.e., never expires.
+     * Useful to avoid scheduling timers for timeouts that never expire.
+     */
+    public static boolean isInfinite(long duration, TimeUnit timeUnit) {
+        return timeUnit.toNanos(duration) >= INFINITE_NANOS;
+    }
+
+    /**
+     * Checks if the deadline was already reached.
+     */
+    public boolean isExpired() {
+        return Timeouts.isTimeout(remainingNanos());
+    }
+
+    @Override
+    public int compareTo(Deadline other) {
+        if (isInfinite || other.isInfinite) {
+            return Boolean.compare(isInfinite, other.isInfinite);
+        }
+        // nanoTime values must be compared by their difference, since they may overflow
+        return Long.signum(deadline - other.deadline);
+    }
+}
@@ -18,11 +18,17 @@ public final class Timeouts {
      * @param duration the timeout duration.
      * @param timeUnit the duration unit.
      * @return the deadline for the timeout.
+     * @deprecated uses the non-monotonic wall-clock with millisecond precision, use {@link Deadline#after} instead.
      */
+    @Deprecated
     public static long start(long duration, TimeUnit timeUnit) {
         return start(timeUnit.toMillis(duration));
     }
 
+    /**
+     * @deprecated use {@link Deadline#after} instead.
+     */
+    @Deprecated
     public static long start(long timeout) {
         return System.currentTimeMillis() + timeout;
     }
@@ -32,7 +38,9 @@ public final class Timeouts {
      *
      * @param deadline the timeout deadline
      * @return the amount of milliseconds remaining for the timeout deadline.
+     * @deprecated use {@link Deadline#remainingNanos()} instead.
      */
+    @Deprecated
     public static long remaining(long deadline) {
         return deadline - System.currentTimeMillis();
     }
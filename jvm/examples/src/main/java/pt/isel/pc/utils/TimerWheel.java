@@ -0,0 +1,256 @@
+package pt.isel.pc.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timer wheel, for a large number of timeouts that are mostly cancelled before expiring,
+ * such as the timeouts of asynchronous acquisitions.
+ * The time is divided into ticks and the timeouts are kept in a circular array of buckets, one per tick,
+ * where the timeout with deadline at tick {@code t} is in the bucket {@code t % wheelSize}, together with
+ * the number of wheel rounds still missing.
+ * Both {@link #schedule} and {@link Timeout#cancel()} are O(1) and lock-free: they just add the timeout to a
+ * queue, which is processed by a single driver thread. Only the driver thread accesses the buckets.
+ * The driver thread also runs the expired tasks, so they must be short and non-blocking, e.g., completing
+ * a future. The precision is one tick, and a task never runs before its deadline.
+ * Based on the {@code HashedWheelTimer} from Netty, which follows Varghese and Lauck's "Hashed and
+ * Hierarchical Timing Wheels".
+ */
+public class TimerWheel implements AutoCloseable {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    // Maximum number of new timeouts added to the buckets on each tick, so that a burst doesn't delay the expiration
+    private static final int MAX_TIMEOUTS_PER_TICK = 100_000;
+
+    /**
+     * A scheduled task, which is also a node of the bucket's list.
+     */
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // only accessed by the driver thread
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task, returning {@code true} if it was still pending.
+         * The timeout is removed from its bucket on the next tick.
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    // Doubly-linked list of timeouts, to remove cancelled timeouts in O(1)
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev == null) {
+                head = next;
+            } else {
+                timeout.prev.next = next;
+            }
+            if (next == null) {
+                tail = timeout.prev;
+            } else {
+                next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.next = null;
+            timeout.prev = null;
+            return next;
+        }
+    }
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startTime;
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final Thread driver;
+    private volatile boolean isClosed = false;
+
+    // only accessed by the driver thread
+    private long tick = 0;
+
+    private static final class DefaultHolder {
+        static final TimerWheel instance = new TimerWheel();
+    }
+
+    /**
+     * Returns the timer shared by all the users that don't provide their own, so that there is a single
+     * driver thread. It is created on the first use and must not be closed.
+     */
+    public static TimerWheel getDefault() {
+        return DefaultHolder.instance;
+    }
+
+    public TimerWheel() {
+        this(1, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * @param tickDuration the duration of each tick, i.e., the timer's precision.
+     * @param timeUnit     the tick duration unit.
+     * @param wheelSize    the number of buckets, rounded up to a power of two. Timeouts longer than
+     *                     {@code tickDuration * wheelSize} stay on the wheel for more than one round.
+     */
+    public TimerWheel(long tickDuration, TimeUnit timeUnit, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive");
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize must be between 1 and 2^30");
+        }
+        tickNanos = timeUnit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        size = Math.max(size, 1);
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; ++i) {
+            wheel[i] = new Bucket();
+        }
+        mask = size - 1;
+        startTime = System.nanoTime();
+        driver = new Thread(this::run, "timer-wheel");
+        driver.setDaemon(true);
+        driver.start();
+    }
+
+    /**
+     * Schedules the task to run by the driver thread after the given delay.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit timeUnit) {
+        if (isClosed) {
+            throw new IllegalStateException("timer is closed");
+        }
+        // the deadline is relative to the start time so that the tick computation doesn't overflow
+        long delayNanos = Math.max(timeUnit.toNanos(delay), 0);
+        long deadline = System.nanoTime() - startTime + delayNanos;
+        if (delayNanos > 0 && deadline < 0) {
+            deadline = Long.MAX_VALUE;
+        }
+        Timeout timeout = new Timeout(task, deadline);
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the driver thread. The pending timeouts are never run.
+     */
+    @Override
+    public void close() {
+        isClosed = true;
+        LockSupport.unpark(driver);
+    }
+
+    private void run() {
+        while (!isClosed) {
+            long tickDeadline = (tick + 1) * tickNanos;
+            long remaining;
+            while ((remaining = tickDeadline - (System.nanoTime() - startTime)) > 0 && !isClosed) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            removeCancelledTimeouts();
+            transferNewTimeouts();
+            expireTimeouts(wheel[(int) (tick & mask)]);
+            tick += 1;
+        }
+    }
+
+    private void removeCancelledTimeouts() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            // a timeout cancelled before being transferred isn't on any bucket
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferNewTimeouts() {
+        for (int i = 0; i < MAX_TIMEOUTS_PER_TICK; ++i) {
+            Timeout timeout = newTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() == CANCELLED) {
+                continue;
+            }
+            long deadlineTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (deadlineTick - tick) / wheel.length;
+            // a timeout already in the past goes to the current bucket
+            long bucketTick = Math.max(deadlineTick, tick);
+            wheel[(int) (bucketTick & mask)].add(timeout);
+        }
+    }
+
+    private void expireTimeouts(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            if (timeout.remainingRounds <= 0) {
+                Timeout next = bucket.remove(timeout);
+                if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+                    runTask(timeout.task);
+                }
+                timeout = next;
+            } else if (timeout.state.get() == CANCELLED) {
+                timeout = bucket.remove(timeout);
+            } else {
+                timeout.remainingRounds -= 1;
+                timeout = timeout.next;
+            }
+        }
+    }
+
+    private static void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable e) {
+            // an exception on a task must not stop the driver thread
+            Thread currentThread = Thread.currentThread();
+            currentThread.getUncaughtExceptionHandler().uncaughtException(currentThread, e);
+        }
+    }
+}
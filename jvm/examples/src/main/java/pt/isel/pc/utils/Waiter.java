@@ -0,0 +1,72 @@
+package pt.isel.pc.utils;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Represents a thread waiting on a kernel-style synchronizer, replacing the per-request
+ * {@code Request}, {@link NodeLinkedList.Node} and {@link java.util.concurrent.locks.Condition} objects.
+ * There is a single instance per thread, reused on every wait, since a thread can only wait on one
+ * synchronizer at a time. It is also an intrusive node of a {@link WaiterQueue}, so the wait path doesn't
+ * allocate any objects on steady state.
+ * The request fields ({@link #units}, {@link #item} and {@link #isDone}) must only be accessed while holding
+ * the synchronizer's lock.
+ */
+public final class Waiter {
+
+    private static final ThreadLocal<Waiter> current = ThreadLocal.withInitial(() -> new Waiter(Thread.currentThread()));
+
+    private final Thread thread;
+
+    // WaiterQueue links
+    Waiter next;
+    Waiter prev;
+
+    public int units;
+    public Object item;
+    public boolean isDone;
+
+    Waiter(Thread thread) {
+        this.thread = thread;
+    }
+
+    /**
+     * Returns the calling thread's waiter, with the request fields cleared.
+     */
+    public static Waiter prepare() {
+        Waiter waiter = current.get();
+        waiter.units = 0;
+        waiter.item = null;
+        waiter.isDone = false;
+        return waiter;
+    }
+
+    /**
+     * Wakes up the waiting thread. Should be called after changing the request fields and
+     * while holding the lock.
+     */
+    public void signal() {
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Releases the lock, waits until signaled, interrupted or the timeout expires, and reacquires the lock.
+     * Like {@link java.util.concurrent.locks.Condition#await}, it can return spuriously, so the caller
+     * must always reevaluate the request state.
+     *
+     * @param lock    the synchronizer's lock, held by the calling thread.
+     * @param nanos the maximum amount of nanoseconds to wait, see {@link Deadline#remainingNanos()}.
+     * @throws InterruptedException if the thread was interrupted, after reacquiring the lock.
+     */
+    public void awaitNanos(Lock lock, long nanos) throws InterruptedException {
+        lock.unlock();
+        try {
+            LockSupport.parkNanos(this, nanos);
+        } finally {
+            lock.lock();
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
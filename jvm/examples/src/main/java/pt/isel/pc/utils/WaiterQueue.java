@@ -0,0 +1,68 @@
+package pt.isel.pc.utils;
+
+/**
+ * FIFO queue of {@link Waiter}, with the same operations as {@link NodeLinkedList} but where the waiters
+ * are the list nodes, so that enqueuing doesn't allocate.
+ * Not thread-safe, must be used while holding the synchronizer's lock.
+ */
+public class WaiterQueue {
+
+    private final Waiter head;
+    private int count = 0;
+
+    public WaiterQueue() {
+        head = new Waiter(null);
+        head.next = head;
+        head.prev = head;
+    }
+
+    public Waiter enqueue(Waiter waiter) {
+        Waiter tail = head.prev;
+        waiter.prev = tail;
+        waiter.next = head;
+        head.prev = waiter;
+        tail.next = waiter;
+        count += 1;
+        return waiter;
+    }
+
+    public boolean isEmpty() {
+        return head == head.prev;
+    }
+
+    public boolean isNotEmpty() {
+        return !isEmpty();
+    }
+
+    public Waiter getHead() {
+        if (isEmpty()) {
+            throw new IllegalStateException("cannot get head of an empty queue");
+        }
+        return head.next;
+    }
+
+    public boolean isHead(Waiter waiter) {
+        return head.next == waiter;
+    }
+
+    public Waiter pull() {
+        if (isEmpty()) {
+            throw new IllegalStateException("cannot pull from an empty queue");
+        }
+        Waiter waiter = head.next;
+        remove(waiter);
+        return waiter;
+    }
+
+    public void remove(Waiter waiter) {
+        waiter.prev.next = waiter.next;
+        waiter.next.prev = waiter.prev;
+        waiter.next = null;
+        waiter.prev = null;
+        count -= 1;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
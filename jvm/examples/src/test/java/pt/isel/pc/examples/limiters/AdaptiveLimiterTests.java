@@ -0,0 +1,69 @@
+package pt.isel.pc.examples.limiters;
+
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveLimiterTests {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void aimd_grows_additively_and_shrinks_multiplicatively() {
+        AimdLimit aimd = new AimdLimit(10, 1, 20, 0.5, 100, TimeUnit.MILLISECONDS);
+        assertEquals(11, aimd.update(10, 10 * MS, 10, false));
+        // not growing while less than half the limit is used
+        assertEquals(10, aimd.update(10, 10 * MS, 4, false));
+        assertEquals(5, aimd.update(10, 10 * MS, 10, true));
+        assertEquals(5, aimd.update(10, 200 * MS, 10, false));
+        assertEquals(20, aimd.update(20, 10 * MS, 20, false));
+        assertEquals(1, aimd.update(1, 10 * MS, 1, true));
+    }
+
+    @Test
+    public void gradient_shrinks_when_the_latency_grows() {
+        GradientLimit gradient = new GradientLimit(20, 1, 100, 1.5, 0.2, 10, 600);
+        int limit = 20;
+        for (int i = 0; i < 100; ++i) {
+            limit = gradient.update(limit, 10 * MS, limit, false);
+        }
+        int limitWithStableLatency = limit;
+        assertTrue(limitWithStableLatency > 20);
+        for (int i = 0; i < 100; ++i) {
+            limit = gradient.update(limit, 50 * MS, limit, false);
+        }
+        assertTrue(limit < limitWithStableLatency);
+    }
+
+    @Test
+    public void gradient_shrinks_small_limits_on_drops() {
+        GradientLimit gradient = new GradientLimit(4, 1, 100, 1.5, 0.5, 10, 600);
+        int limit = 4;
+        for (int i = 0; i < 10; ++i) {
+            limit = gradient.update(limit, 10 * MS, limit, true);
+        }
+        assertEquals(1, limit);
+    }
+
+    @Test
+    public void limiter_rejects_requests_above_the_limit() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(new AimdLimit(2, 1, 10, 0.5, 1, TimeUnit.SECONDS));
+        Optional<AdaptiveLimiter.Permit> p0 = limiter.tryAcquire(0, TimeUnit.MILLISECONDS);
+        Optional<AdaptiveLimiter.Permit> p1 = limiter.tryAcquire(0, TimeUnit.MILLISECONDS);
+        assertTrue(p0.isPresent());
+        assertTrue(p1.isPresent());
+        assertFalse(limiter.tryAcquire(10, TimeUnit.MILLISECONDS).isPresent());
+
+        p0.get().onSuccess();
+        assertEquals(3, limiter.getLimit());
+        p1.get().onDropped();
+        assertEquals(1, limiter.getLimit());
+        assertTrue(limiter.tryAcquire(0, TimeUnit.MILLISECONDS).isPresent());
+        assertFalse(limiter.tryAcquire(0, TimeUnit.MILLISECONDS).isPresent());
+    }
+}
@@ -0,0 +1,109 @@
+package pt.isel.pc.examples.limiters;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketRateLimiterTests {
+
+    @Test
+    public void allows_bursts_up_to_the_capacity_and_then_the_refill_rate() throws InterruptedException {
+        // 100 tokens per second, i.e., one token each 10 ms
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 100, 1, TimeUnit.SECONDS);
+        assertTrue(limiter.acquire(10, 0, TimeUnit.MILLISECONDS));
+        assertFalse(limiter.acquire(1, 0, TimeUnit.MILLISECONDS));
+
+        long start = System.nanoTime();
+        assertTrue(limiter.acquire(5, 1, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed " + elapsedMs, elapsedMs >= 45 && elapsedMs < 500);
+    }
+
+    @Test
+    public void fails_immediately_if_the_tokens_are_not_available_before_the_timeout() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 10, 1, TimeUnit.SECONDS);
+        assertTrue(limiter.acquire(10, 0, TimeUnit.MILLISECONDS));
+        long start = System.nanoTime();
+        // the 10 tokens need one second
+        assertFalse(limiter.acquire(10, 500, TimeUnit.MILLISECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requests_above_the_capacity_are_rejected() throws InterruptedException {
+        new TokenBucketRateLimiter(10, 10, 1, TimeUnit.SECONDS).acquire(11, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void acquisitions_are_done_in_FIFO_order() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(5, 100, 1, TimeUnit.SECONDS);
+        assertTrue(limiter.acquire(5, 0, TimeUnit.MILLISECONDS));
+        ConcurrentLinkedQueue<Integer> order = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            int index = i;
+            // a large request followed by small ones, which must not overtake it
+            int tokens = i == 0 ? 5 : 1;
+            Thread th = new Thread(() -> {
+                try {
+                    if (limiter.acquire(tokens, 5, TimeUnit.SECONDS)) {
+                        order.add(index);
+                    }
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            });
+            threads.add(th);
+            th.start();
+            Thread.sleep(5);
+        }
+        for (Thread th : threads) {
+            th.join();
+        }
+        assertEquals(List.of(0, 1, 2), new ArrayList<>(order));
+    }
+
+    @Test
+    public void async_acquisitions_complete_when_the_tokens_are_refilled() {
+        AsyncTokenBucketRateLimiter limiter = new AsyncTokenBucketRateLimiter(10, 100, 1, TimeUnit.SECONDS);
+        assertTrue(limiter.acquireAsync(10, 0, TimeUnit.MILLISECONDS).join());
+        long start = System.nanoTime();
+        CompletableFuture<Boolean> cf0 = limiter.acquireAsync(5, 1, TimeUnit.SECONDS);
+        CompletableFuture<Boolean> cf1 = limiter.acquireAsync(5, 1, TimeUnit.SECONDS);
+        assertFalse(cf0.isDone());
+        assertTrue(cf0.join());
+        assertTrue(cf1.join());
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed " + elapsedMs, elapsedMs >= 95 && elapsedMs < 600);
+    }
+
+    @Test
+    public void async_acquisitions_complete_with_false_on_timeout_or_cancel() {
+        AsyncTokenBucketRateLimiter limiter = new AsyncTokenBucketRateLimiter(10, 10, 1, TimeUnit.SECONDS);
+        assertTrue(limiter.acquireAsync(10, 0, TimeUnit.MILLISECONDS).join());
+        CompletableFuture<Boolean> cf0 = limiter.acquireAsync(10, 50, TimeUnit.MILLISECONDS);
+        CompletableFuture<Boolean> cf1 = limiter.acquireAsync(1, 5, TimeUnit.SECONDS);
+        assertFalse(cf0.join());
+        assertTrue(cf1.cancel(true));
+        // the given up requests didn't take tokens
+        assertTrue(limiter.acquireAsync(2, 1, TimeUnit.SECONDS).join());
+    }
+
+    @Test
+    public void async_acquisitions_without_timeout_complete_or_are_cancelled() {
+        AsyncTokenBucketRateLimiter limiter = new AsyncTokenBucketRateLimiter(10, 100, 1, TimeUnit.SECONDS);
+        assertTrue(limiter.acquireAsync(10, 0, TimeUnit.MILLISECONDS).join());
+        CompletableFuture<Boolean> cf0 = limiter.acquireAsync(10, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        CompletableFuture<Boolean> cf1 = limiter.acquireAsync(5, Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        assertTrue(cf0.cancel(true));
+        assertTrue(cf1.join());
+    }
+}
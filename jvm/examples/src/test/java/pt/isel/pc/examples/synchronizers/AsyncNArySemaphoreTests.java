@@ -0,0 +1,111 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pt.isel.pc.utils.TimerWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncNArySemaphoreTests {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncNArySemaphoreTests.class);
+    private static final long NO_TIMEOUT = Long.MAX_VALUE;
+    private static final TimerWheel timer = new TimerWheel();
+
+    private static <V> CompletableFuture<V> delay(V value, long delay, TimeUnit timeUnit) {
+        CompletableFuture<V> cf = new CompletableFuture<>();
+        timer.schedule(() -> cf.complete(value), delay, timeUnit);
+        return cf;
+    }
+
+    @Test
+    public void acquire_with_available_units_completes_immediately() {
+        AsyncNArySemaphore semaphore = new AsyncNArySemaphore(2);
+        CompletableFuture<Boolean> cf = semaphore.acquireAsync(2, NO_TIMEOUT, TimeUnit.MILLISECONDS);
+        assertTrue(cf.isDone());
+        assertTrue(cf.join());
+    }
+
+    @Test
+    public void acquire_with_zero_timeout_completes_immediately_with_false() {
+        AsyncNArySemaphore semaphore = new AsyncNArySemaphore(1);
+        CompletableFuture<Boolean> cf = semaphore.acquireAsync(2, 0, TimeUnit.MILLISECONDS);
+        assertTrue(cf.isDone());
+        assertFalse(cf.join());
+    }
+
+    @Test
+    public void acquire_completes_with_false_after_timeout()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        AsyncNArySemaphore semaphore = new AsyncNArySemaphore(0);
+        CompletableFuture<Boolean> cf0 = semaphore.acquireAsync(1, 500, TimeUnit.MILLISECONDS);
+        CompletableFuture<Boolean> cf1 = semaphore.acquireAsync(1, 100, TimeUnit.MILLISECONDS);
+        assertFalse(cf1.get(1000, TimeUnit.MILLISECONDS));
+        assertFalse(cf0.isDone());
+        assertFalse(cf0.get(1000, TimeUnit.MILLISECONDS));
+
+        // the timed out requests don't retain units
+        semaphore.release(1);
+        assertTrue(semaphore.acquireAsync(1, 0, TimeUnit.MILLISECONDS).join());
+    }
+
+    @Test
+    public void acquisitions_are_completed_in_FIFO_order() {
+        AsyncNArySemaphore semaphore = new AsyncNArySemaphore(0);
+        CompletableFuture<Boolean> cf0 = semaphore.acquireAsync(2, NO_TIMEOUT, TimeUnit.MILLISECONDS);
+        CompletableFuture<Boolean> cf1 = semaphore.acquireAsync(1, NO_TIMEOUT, TimeUnit.MILLISECONDS);
+        semaphore.release(1);
+        assertFalse(cf0.isDone());
+        assertFalse(cf1.isDone());
+        semaphore.release(2);
+        assertTrue(cf0.join());
+        assertTrue(cf1.join());
+    }
+
+    @Test
+    public void cancelling_a_pending_acquisition_allows_the_following_ones() {
+        AsyncNArySemaphore semaphore = new AsyncNArySemaphore(1);
+        CompletableFuture<Boolean> cf0 = semaphore.acquireAsync(2, NO_TIMEOUT, TimeUnit.MILLISECONDS);
+        CompletableFuture<Boolean> cf1 = semaphore.acquireAsync(1, NO_TIMEOUT, TimeUnit.MILLISECONDS);
+        assertFalse(cf1.isDone());
+        assertTrue(cf0.cancel(true));
+        assertTrue(cf0.isCancelled());
+        assertTrue(cf1.isDone());
+        assertTrue(cf1.join());
+    }
+
+    @Test
+    public void throttles_asynchronous_operations_without_blocking_threads() {
+        final int units = 3;
+        final int nOfOperations = 100;
+        AsyncNArySemaphore semaphore = new AsyncNArySemaphore(units);
+        AtomicInteger inProgress = new AtomicInteger();
+        AtomicInteger maxInProgress = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < nOfOperations; ++i) {
+            int index = i;
+            futures.add(semaphore.acquireAsync(1, NO_TIMEOUT, TimeUnit.MILLISECONDS)
+                    .thenCompose(ignore -> {
+                        maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+                        return delay(index, 5, TimeUnit.MILLISECONDS);
+                    })
+                    .whenComplete((res, err) -> {
+                        inProgress.decrementAndGet();
+                        semaphore.release(1);
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        log.info("max operations in progress = {}", maxInProgress.get());
+        assertTrue(maxInProgress.get() <= units);
+    }
+}
@@ -0,0 +1,197 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static pt.isel.pc.examples.utils.TestUtils.waitUntilTimedWaiting;
+
+/*
+ * Tests the buffered mode and the batch operations of both versions of BlockingQueue.
+ */
+public class BlockingQueueTests {
+
+    private static final long LONG_TIMEOUT = 10;
+
+    interface Queue {
+        boolean enqueue(Integer element, long timeout, TimeUnit timeUnit) throws InterruptedException;
+
+        int enqueueAll(List<Integer> elements, long timeout, TimeUnit timeUnit) throws InterruptedException;
+
+        Optional<Integer> dequeue(long timeout, TimeUnit timeUnit) throws InterruptedException;
+
+        List<Integer> dequeueBatch(int max, long timeout, TimeUnit timeUnit) throws InterruptedException;
+    }
+
+    private static final List<IntFunction<Queue>> implementations = List.of(
+            capacity -> {
+                pt.isel.pc.demos.li51d.synchronizers.BlockingQueue<Integer> queue =
+                        new pt.isel.pc.demos.li51d.synchronizers.BlockingQueue<>(capacity);
+                return new Queue() {
+                    public boolean enqueue(Integer element, long timeout, TimeUnit timeUnit)
+                            throws InterruptedException {
+                        return queue.enqueue(element, timeout, timeUnit);
+                    }
+
+                    public int enqueueAll(List<Integer> elements, long timeout, TimeUnit timeUnit)
+                            throws InterruptedException {
+                        return queue.enqueueAll(elements, timeout, timeUnit);
+                    }
+
+                    public Optional<Integer> dequeue(long timeout, TimeUnit timeUnit) throws InterruptedException {
+                        return queue.dequeue(timeout, timeUnit);
+                    }
+
+                    public List<Integer> dequeueBatch(int max, long timeout, TimeUnit timeUnit)
+                            throws InterruptedException {
+                        return queue.dequeueBatch(max, timeout, timeUnit);
+                    }
+                };
+            },
+            capacity -> {
+                pt.isel.pc.demos.li51n.synchronizers.BlockingQueue<Integer> queue =
+                        new pt.isel.pc.demos.li51n.synchronizers.BlockingQueue<>(capacity);
+                return new Queue() {
+                    public boolean enqueue(Integer element, long timeout, TimeUnit timeUnit)
+                            throws InterruptedException {
+                        return queue.enqueue(element, timeout, timeUnit);
+                    }
+
+                    public int enqueueAll(List<Integer> elements, long timeout, TimeUnit timeUnit)
+                            throws InterruptedException {
+                        return queue.enqueueAll(elements, timeout, timeUnit);
+                    }
+
+                    public Optional<Integer> dequeue(long timeout, TimeUnit timeUnit) throws InterruptedException {
+                        return queue.dequeue(timeout, timeUnit);
+                    }
+
+                    public List<Integer> dequeueBatch(int max, long timeout, TimeUnit timeUnit)
+                            throws InterruptedException {
+                        return queue.dequeueBatch(max, timeout, timeUnit);
+                    }
+                };
+            });
+
+    @Test
+    public void blocked_senders_are_moved_to_the_buffer_in_FIFO_order() throws Exception {
+        for (IntFunction<Queue> implementation : implementations) {
+            Queue queue = implementation.apply(1);
+            assertTrue(queue.enqueue(1, 0, TimeUnit.MILLISECONDS));
+            assertFalse(queue.enqueue(2, 0, TimeUnit.MILLISECONDS));
+            List<FutureTask<Boolean>> senders = List.of(
+                    startAndWaitUntilBlocked(() -> queue.enqueue(2, LONG_TIMEOUT, TimeUnit.SECONDS)),
+                    startAndWaitUntilBlocked(() -> queue.enqueue(3, LONG_TIMEOUT, TimeUnit.SECONDS)));
+            for (int i = 1; i <= 3; ++i) {
+                assertEquals(Optional.of(i), queue.dequeue(0, TimeUnit.MILLISECONDS));
+            }
+            for (FutureTask<Boolean> sender : senders) {
+                assertTrue(sender.get());
+            }
+            assertFalse(queue.dequeue(0, TimeUnit.MILLISECONDS).isPresent());
+        }
+    }
+
+    @Test
+    public void enqueueAll_returns_the_enqueued_count_on_timeout() throws InterruptedException {
+        for (IntFunction<Queue> implementation : implementations) {
+            Queue queue = implementation.apply(2);
+            assertEquals(2, queue.enqueueAll(List.of(1, 2, 3, 4), 0, TimeUnit.MILLISECONDS));
+            assertEquals(0, queue.enqueueAll(List.of(3, 4), 20, TimeUnit.MILLISECONDS));
+            assertEquals(List.of(1, 2), queue.dequeueBatch(10, 0, TimeUnit.MILLISECONDS));
+            assertEquals(2, queue.enqueueAll(List.of(3, 4, 5), 20, TimeUnit.MILLISECONDS));
+            assertEquals(List.of(3, 4), queue.dequeueBatch(10, 0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void enqueueAll_returns_the_enqueued_count_with_the_interrupt_status_on_interrupt() throws Exception {
+        for (IntFunction<Queue> implementation : implementations) {
+            Queue queue = implementation.apply(2);
+            Thread[] sender = new Thread[1];
+            FutureTask<Integer> partial = startAndWaitUntilBlocked(() -> {
+                int count = queue.enqueueAll(List.of(1, 2, 3, 4), LONG_TIMEOUT, TimeUnit.SECONDS);
+                return Thread.currentThread().isInterrupted() ? count : -1;
+            }, sender);
+            sender[0].interrupt();
+            assertEquals(Integer.valueOf(2), partial.get());
+            assertEquals(List.of(1, 2), queue.dequeueBatch(10, 0, TimeUnit.MILLISECONDS));
+
+            // nothing was enqueued, so it throws
+            Queue rendezvous = implementation.apply(0);
+            FutureTask<Integer> none = startAndWaitUntilBlocked(
+                    () -> rendezvous.enqueueAll(List.of(1, 2), LONG_TIMEOUT, TimeUnit.SECONDS), sender);
+            sender[0].interrupt();
+            try {
+                none.get();
+                fail("must throw InterruptedException");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof InterruptedException);
+            }
+            assertFalse(rendezvous.dequeue(0, TimeUnit.MILLISECONDS).isPresent());
+        }
+    }
+
+    @Test
+    public void dequeueBatch_takes_from_the_buffer_up_to_max() throws InterruptedException {
+        for (IntFunction<Queue> implementation : implementations) {
+            Queue queue = implementation.apply(4);
+            assertEquals(List.of(), queue.dequeueBatch(3, 0, TimeUnit.MILLISECONDS));
+            assertEquals(List.of(), queue.dequeueBatch(3, 20, TimeUnit.MILLISECONDS));
+            assertEquals(4, queue.enqueueAll(List.of(1, 2, 3, 4), 0, TimeUnit.MILLISECONDS));
+            assertEquals(List.of(1, 2, 3), queue.dequeueBatch(3, 0, TimeUnit.MILLISECONDS));
+            assertEquals(List.of(4), queue.dequeueBatch(3, 0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void dequeueBatch_takes_from_the_waiting_senders_without_buffer() throws Exception {
+        for (IntFunction<Queue> implementation : implementations) {
+            Queue queue = implementation.apply(0);
+            List<FutureTask<Boolean>> senders = List.of(
+                    startAndWaitUntilBlocked(() -> queue.enqueue(1, LONG_TIMEOUT, TimeUnit.SECONDS)),
+                    startAndWaitUntilBlocked(() -> queue.enqueue(2, LONG_TIMEOUT, TimeUnit.SECONDS)),
+                    startAndWaitUntilBlocked(() -> queue.enqueue(3, LONG_TIMEOUT, TimeUnit.SECONDS)));
+            assertEquals(List.of(1, 2), queue.dequeueBatch(2, 0, TimeUnit.MILLISECONDS));
+            assertEquals(List.of(3), queue.dequeueBatch(2, 0, TimeUnit.MILLISECONDS));
+            for (FutureTask<Boolean> sender : senders) {
+                assertTrue(sender.get());
+            }
+        }
+    }
+
+    @Test
+    public void dequeueBatch_waits_for_the_first_element_and_takes_the_available_ones() throws Exception {
+        for (IntFunction<Queue> implementation : implementations) {
+            Queue queue = implementation.apply(2);
+            FutureTask<List<Integer>> receiver =
+                    startAndWaitUntilBlocked(() -> queue.dequeueBatch(10, LONG_TIMEOUT, TimeUnit.SECONDS));
+            // the first element goes to the receiver and the others to the buffer, all while holding the lock
+            assertEquals(3, queue.enqueueAll(List.of(1, 2, 3), 0, TimeUnit.MILLISECONDS));
+            assertEquals(List.of(1, 2, 3), receiver.get());
+        }
+    }
+
+    private static <T> FutureTask<T> startAndWaitUntilBlocked(Callable<T> callable) {
+        return startAndWaitUntilBlocked(callable, new Thread[1]);
+    }
+
+    // the thread is returned on th[0], so that it can be interrupted
+    private static <T> FutureTask<T> startAndWaitUntilBlocked(Callable<T> callable, Thread[] th) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        th[0] = new Thread(task);
+        th[0].start();
+        waitUntilTimedWaiting(th[0]);
+        return task;
+    }
+}
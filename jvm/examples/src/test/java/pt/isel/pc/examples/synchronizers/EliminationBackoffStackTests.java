@@ -0,0 +1,55 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+import pt.isel.pc.demos.li51n.synchronizers.EliminationBackoffStack;
+import pt.isel.pc.examples.utils.TestHelper;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class EliminationBackoffStackTests {
+
+    private static final int N_OF_THREADS = 8;
+    private static final Duration TEST_DURATION = Duration.ofSeconds(3);
+
+    @Test
+    public void pop_returns_the_elements_in_reverse_order() {
+        EliminationBackoffStack<Integer> stack = new EliminationBackoffStack<>();
+        assertFalse(stack.pop().isPresent());
+        for (int i = 0; i < 10; ++i) {
+            stack.push(i);
+        }
+        for (int i = 9; i >= 0; --i) {
+            assertEquals(Optional.of(i), stack.pop());
+        }
+        assertFalse(stack.pop().isPresent());
+    }
+
+    @Test
+    public void no_element_is_lost_or_duplicated_with_concurrent_push_and_pop() throws InterruptedException {
+        // a small elimination array makes the exchanges more likely
+        EliminationBackoffStack<Long> stack = new EliminationBackoffStack<>(2);
+        AtomicLong pushedSum = new AtomicLong();
+        AtomicLong poppedSum = new AtomicLong();
+        TestHelper testHelper = new TestHelper(TEST_DURATION);
+        testHelper.createAndStartMultiple(N_OF_THREADS, (ix, isDone) -> {
+            long value = (long) ix << 32;
+            while (!isDone.get()) {
+                stack.push(++value);
+                pushedSum.addAndGet(value);
+                Optional<Long> popped = stack.pop();
+                popped.ifPresent(poppedSum::addAndGet);
+            }
+        });
+        testHelper.join();
+        Optional<Long> popped;
+        while ((popped = stack.pop()).isPresent()) {
+            poppedSum.addAndGet(popped.get());
+        }
+        assertEquals(pushedSum.get(), poppedSum.get());
+    }
+}
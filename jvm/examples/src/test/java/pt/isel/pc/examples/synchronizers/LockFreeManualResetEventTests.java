@@ -0,0 +1,77 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LockFreeManualResetEventTests {
+
+    @Test
+    public void waitSet_returns_immediately_when_set() throws InterruptedException {
+        LockFreeManualResetEvent event = new LockFreeManualResetEvent(true);
+        assertTrue(event.waitSet(0, TimeUnit.MILLISECONDS));
+        event.reset();
+        assertFalse(event.waitSet(0, TimeUnit.MILLISECONDS));
+        assertFalse(event.waitSet(50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void waiting_threads_return_true_even_after_an_immediate_reset() throws InterruptedException {
+        LockFreeManualResetEvent event = new LockFreeManualResetEvent();
+        final int nOfThreads = 10;
+        final int nOfRounds = 100;
+        AtomicInteger successes = new AtomicInteger();
+        for (int round = 0; round < nOfRounds; ++round) {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < nOfThreads; ++i) {
+                Thread th = new Thread(() -> {
+                    try {
+                        if (event.waitSet(5, TimeUnit.SECONDS)) {
+                            successes.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        // ignore
+                    }
+                });
+                threads.add(th);
+                th.start();
+            }
+            // wait until all threads are waiting
+            for (Thread th : threads) {
+                while (th.getState() != Thread.State.TIMED_WAITING) {
+                    Thread.yield();
+                }
+            }
+            event.set();
+            event.reset();
+            for (Thread th : threads) {
+                th.join();
+            }
+        }
+        assertEquals(nOfThreads * nOfRounds, successes.get());
+    }
+
+    @Test
+    public void timed_out_and_interrupted_waiters_give_up() throws InterruptedException {
+        LockFreeManualResetEvent event = new LockFreeManualResetEvent();
+        for (int i = 0; i < 1000; ++i) {
+            assertFalse(event.waitSet(1, TimeUnit.NANOSECONDS));
+        }
+        Thread.currentThread().interrupt();
+        try {
+            event.waitSet(1, TimeUnit.SECONDS);
+            throw new AssertionError("should have been interrupted");
+        } catch (InterruptedException e) {
+            // expected
+        }
+        event.set();
+        assertTrue(event.waitSet(0, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,107 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+import pt.isel.pc.demos.li51n.synchronizers.LockFreeQueue;
+import pt.isel.pc.examples.utils.TestHelper;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LockFreeQueueTests {
+
+    private static final int N_OF_PRODUCERS = 4;
+    private static final int N_OF_CONSUMERS = 4;
+    private static final Duration TEST_DURATION = Duration.ofSeconds(3);
+    // producers wait while there are more elements than this on the queue, to bound the memory usage
+    private static final int MAX_PENDING = 10_000;
+
+    @Test
+    public void dequeue_returns_the_elements_in_order() {
+        LockFreeQueue<Integer> queue = new LockFreeQueue<>();
+        assertFalse(queue.dequeue().isPresent());
+        for (int i = 0; i < 10; ++i) {
+            queue.enqueue(i);
+        }
+        for (int i = 0; i < 10; ++i) {
+            assertEquals(Optional.of(i), queue.dequeue());
+        }
+        assertFalse(queue.dequeue().isPresent());
+    }
+
+    @Test
+    public void stress_test() throws InterruptedException {
+        LockFreeQueue<Long> queue = new LockFreeQueue<>();
+        stress(queue::enqueue, queue::dequeue);
+    }
+
+    @Test
+    public void stress_test_with_backoff() throws InterruptedException {
+        LockFreeQueue<Long> queue = new LockFreeQueue<>(true);
+        stress(queue::enqueue, queue::dequeue);
+    }
+
+    @Test
+    public void stress_test_li51d() throws InterruptedException {
+        pt.isel.pc.demos.li51d.synchronizers.LockFreeQueue<Long> queue =
+                new pt.isel.pc.demos.li51d.synchronizers.LockFreeQueue<>();
+        stress(queue::enqueue, queue::dequeue);
+    }
+
+    /*
+     * Each element has the producer's index on the high bits and a sequence number on the low bits.
+     * Checks that no element is lost or duplicated, and that each consumer sees the elements of each
+     * producer in order.
+     */
+    private static void stress(Consumer<Long> enqueue, Supplier<Optional<Long>> dequeue)
+            throws InterruptedException {
+        AtomicLong enqueuedSum = new AtomicLong();
+        AtomicLong dequeuedSum = new AtomicLong();
+        AtomicLong enqueuedCount = new AtomicLong();
+        AtomicLong dequeuedCount = new AtomicLong();
+        TestHelper testHelper = new TestHelper(TEST_DURATION);
+        testHelper.createAndStartMultiple(N_OF_PRODUCERS, (ix, isDone) -> {
+            long sequence = 0;
+            while (!isDone.get()) {
+                if (enqueuedCount.get() - dequeuedCount.get() > MAX_PENDING) {
+                    Thread.yield();
+                    continue;
+                }
+                long element = ((long) ix << 32) | sequence++;
+                enqueue.accept(element);
+                enqueuedSum.addAndGet(element);
+                enqueuedCount.incrementAndGet();
+            }
+        });
+        testHelper.createAndStartMultiple(N_OF_CONSUMERS, (ix, isDone) -> {
+            long[] lastSequences = new long[N_OF_PRODUCERS];
+            Arrays.fill(lastSequences, -1);
+            while (!isDone.get()) {
+                Optional<Long> element = dequeue.get();
+                if (element.isPresent()) {
+                    int producer = (int) (element.get() >>> 32);
+                    long sequence = element.get() & 0xFFFFFFFFL;
+                    assertTrue(sequence > lastSequences[producer]);
+                    lastSequences[producer] = sequence;
+                    dequeuedSum.addAndGet(element.get());
+                    dequeuedCount.incrementAndGet();
+                }
+            }
+        });
+        testHelper.join();
+        Optional<Long> element;
+        while ((element = dequeue.get()).isPresent()) {
+            dequeuedSum.addAndGet(element.get());
+            dequeuedCount.incrementAndGet();
+        }
+        assertEquals(enqueuedCount.get(), dequeuedCount.get());
+        assertEquals(enqueuedSum.get(), dequeuedSum.get());
+    }
+}
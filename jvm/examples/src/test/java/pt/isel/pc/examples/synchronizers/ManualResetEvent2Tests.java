@@ -0,0 +1,136 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+import pt.isel.pc.utils.TimerWheel;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/*
+ * Tests the waitSetAsync of both versions of ManualResetEvent2.
+ */
+public class ManualResetEvent2Tests {
+
+    private static final long NO_TIMEOUT = Long.MAX_VALUE;
+    private static final TimerWheel timer = new TimerWheel();
+
+    interface Event {
+        void set();
+
+        void reset();
+
+        CompletableFuture<Boolean> waitSetAsync(long timeoutInMs);
+    }
+
+    private static final List<Supplier<Event>> implementations = List.of(
+            () -> {
+                pt.isel.pc.demos.li51d.synchronizers.ManualResetEvent2 event =
+                        new pt.isel.pc.demos.li51d.synchronizers.ManualResetEvent2(timer);
+                return new Event() {
+                    public void set() {
+                        event.set();
+                    }
+
+                    public void reset() {
+                        event.reset();
+                    }
+
+                    public CompletableFuture<Boolean> waitSetAsync(long timeoutInMs) {
+                        return event.waitSetAsync(timeoutInMs);
+                    }
+                };
+            },
+            () -> {
+                pt.isel.pc.demos.li51n.synchronizers.ManualResetEvent2 event =
+                        new pt.isel.pc.demos.li51n.synchronizers.ManualResetEvent2(timer);
+                return new Event() {
+                    public void set() {
+                        event.set();
+                    }
+
+                    public void reset() {
+                        event.reset();
+                    }
+
+                    public CompletableFuture<Boolean> waitSetAsync(long timeoutInMs) {
+                        return event.waitSetAsync(timeoutInMs);
+                    }
+                };
+            });
+
+    @Test
+    public void pending_waits_complete_with_true_on_set() {
+        for (Supplier<Event> implementation : implementations) {
+            Event event = implementation.get();
+            CompletableFuture<Boolean> cf0 = event.waitSetAsync(NO_TIMEOUT);
+            CompletableFuture<Boolean> cf1 = event.waitSetAsync(5000);
+            assertFalse(cf0.isDone());
+            assertFalse(cf1.isDone());
+            event.set();
+            assertTrue(cf0.isDone() && cf0.join());
+            assertTrue(cf1.isDone() && cf1.join());
+            // fast path
+            assertTrue(event.waitSetAsync(0).join());
+        }
+    }
+
+    @Test
+    public void waits_complete_with_false_on_timeout() {
+        for (Supplier<Event> implementation : implementations) {
+            Event event = implementation.get();
+            assertFalse(event.waitSetAsync(0).join());
+            long start = System.nanoTime();
+            assertFalse(event.waitSetAsync(50).join());
+            assertTrue(System.nanoTime() - start >= 50_000_000);
+            // a set after the timeout doesn't change the result
+            CompletableFuture<Boolean> cf = event.waitSetAsync(10);
+            assertFalse(cf.join());
+            event.set();
+            assertFalse(cf.join());
+        }
+    }
+
+    @Test
+    public void cancelled_waits_are_removed_and_not_completed() {
+        for (Supplier<Event> implementation : implementations) {
+            Event event = implementation.get();
+            CompletableFuture<Boolean> cf0 = event.waitSetAsync(NO_TIMEOUT);
+            CompletableFuture<Boolean> cf1 = event.waitSetAsync(50);
+            CompletableFuture<Boolean> cf2 = event.waitSetAsync(NO_TIMEOUT);
+            assertTrue(cf0.cancel(true));
+            assertTrue(cf1.cancel(true));
+            event.set();
+            assertTrue(cf2.join());
+            for (CompletableFuture<Boolean> cf : List.of(cf0, cf1)) {
+                assertTrue(cf.isCancelled());
+                try {
+                    cf.join();
+                    fail("must be cancelled");
+                } catch (CancellationException e) {
+                    // expected
+                }
+            }
+        }
+    }
+
+    @Test
+    public void pending_waits_complete_with_true_even_after_an_immediate_reset() {
+        for (Supplier<Event> implementation : implementations) {
+            Event event = implementation.get();
+            CompletableFuture<Boolean> cf0 = event.waitSetAsync(NO_TIMEOUT);
+            CompletableFuture<Boolean> cf1 = event.waitSetAsync(50);
+            event.set();
+            event.reset();
+            assertTrue(cf0.join());
+            assertTrue(cf1.join());
+            // a wait started after the reset isn't completed by the previous set
+            assertFalse(event.waitSetAsync(50).join());
+        }
+    }
+}
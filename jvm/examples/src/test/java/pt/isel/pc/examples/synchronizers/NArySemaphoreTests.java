@@ -6,23 +6,34 @@ import org.slf4j.LoggerFactory;
 import pt.isel.pc.examples.utils.TestHelper;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static pt.isel.pc.examples.utils.TestUtils.waitUntilTimedWaiting;
 
 public class NArySemaphoreTests {
 
     private static final int N_OF_THREADS = 100;
     private static final Duration TEST_DURATION = Duration.ofSeconds(10);
     private static final Logger log = LoggerFactory.getLogger(NArySemaphoreTests.class);
+    private static final long LONG_TIMEOUT = 10;
+    private static final int N_OF_RELEASERS = 8;
+    private static final int N_OF_ROUNDS = 20_000;
 
     private void does_not_exceed_max_units(NArySemaphore semaphore, int units) throws InterruptedException {
         AtomicInteger acquiredUnits = new AtomicInteger(units);
@@ -69,6 +80,18 @@ public class NArySemaphoreTests {
         does_not_exceed_max_units(new NArySemaphoreUsingKernelStyle(units), units);
     }
 
+    @Test
+    public void NArySemaphoreWithLockFreeFastPath_simple_test() throws InterruptedException {
+        int units = N_OF_THREADS / 3;
+        does_not_exceed_max_units(new NArySemaphoreWithLockFreeFastPath(units), units);
+    }
+
+    @Test
+    public void StripedNArySemaphore_simple_test() throws InterruptedException {
+        int units = N_OF_THREADS / 3;
+        does_not_exceed_max_units(new StripedNArySemaphore(units, 4), units);
+    }
+
     private void order_test(NArySemaphore sem) throws InterruptedException {
         final ConcurrentLinkedQueue<Long> acquiredUnits = new ConcurrentLinkedQueue<>();
         TestHelper helper = new TestHelper(TEST_DURATION);
@@ -159,4 +182,123 @@ public class NArySemaphoreTests {
         order_test2(NArySemaphoreWithFifoOrder::new);
     }
 
+    @Test
+    public void NArySemaphoreWithLockFreeFastPath_order_test2() throws InterruptedException {
+        order_test2(NArySemaphoreWithLockFreeFastPath::new);
+    }
+
+    @Test
+    public void StripedNArySemaphore_order_test2() throws InterruptedException {
+        order_test2(units -> new StripedNArySemaphore(units, 4));
+    }
+
+    private void timeout_test(Function<Integer, NArySemaphore> create) throws Exception {
+        NArySemaphore semaphore = create.apply(2);
+        assertFalse(semaphore.acquire(3, 20, TimeUnit.MILLISECONDS));
+        // the waiter left, so an acquisition without timeout, i.e. only on the fast path, succeeds
+        assertTrue(semaphore.acquire(2, 0, TimeUnit.MILLISECONDS));
+        semaphore.release(2);
+
+        // a waiter behind a head that times out acquires when the head leaves
+        FutureTask<Boolean> head = startAndWaitUntilBlocked(
+                () -> semaphore.acquire(3, 500, TimeUnit.MILLISECONDS), new Thread[1]);
+        FutureTask<Boolean> next = startAndWaitUntilBlocked(
+                () -> semaphore.acquire(1, LONG_TIMEOUT, TimeUnit.SECONDS), new Thread[1]);
+        assertFalse(head.get());
+        assertTrue(next.get());
+        assertTrue(semaphore.acquire(1, 0, TimeUnit.MILLISECONDS));
+        assertFalse(semaphore.acquire(1, 0, TimeUnit.MILLISECONDS));
+        semaphore.release(2);
+        assertTrue(semaphore.acquire(2, 0, TimeUnit.MILLISECONDS));
+    }
+
+    private void interrupt_test(Function<Integer, NArySemaphore> create) throws Exception {
+        NArySemaphore semaphore = create.apply(1);
+        Thread[] headThread = new Thread[1];
+        FutureTask<Boolean> head = startAndWaitUntilBlocked(
+                () -> semaphore.acquire(2, LONG_TIMEOUT, TimeUnit.SECONDS), headThread);
+        // can't acquire the available unit, since it is behind the head
+        FutureTask<Boolean> next = startAndWaitUntilBlocked(
+                () -> semaphore.acquire(1, LONG_TIMEOUT, TimeUnit.SECONDS), new Thread[1]);
+        headThread[0].interrupt();
+        try {
+            head.get();
+            fail("must throw InterruptedException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InterruptedException);
+        }
+        assertTrue(next.get());
+        assertFalse(semaphore.acquire(1, 0, TimeUnit.MILLISECONDS));
+        semaphore.release(1);
+        assertTrue(semaphore.acquire(1, 0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void NArySemaphoreWithLockFreeFastPath_timeout_test() throws Exception {
+        timeout_test(NArySemaphoreWithLockFreeFastPath::new);
+    }
+
+    @Test
+    public void NArySemaphoreWithLockFreeFastPath_interrupt_test() throws Exception {
+        interrupt_test(NArySemaphoreWithLockFreeFastPath::new);
+    }
+
+    @Test
+    public void StripedNArySemaphore_timeout_test() throws Exception {
+        timeout_test(units -> new StripedNArySemaphore(units, 4));
+    }
+
+    @Test
+    public void StripedNArySemaphore_interrupt_test() throws Exception {
+        interrupt_test(units -> new StripedNArySemaphore(units, 4));
+    }
+
+    /*
+     * On each round, a thread starts to wait for more units than a single cell gets, while other threads
+     * release one unit each, on their cells. Every released unit must reach the waiter, even the ones
+     * released to a cell after the waiter drained the cells, since no other thread would move them.
+     */
+    @Test
+    public void StripedNArySemaphore_releases_reach_a_thread_starting_to_wait() throws Exception {
+        StripedNArySemaphore semaphore = new StripedNArySemaphore(0, 4);
+        CyclicBarrier start = new CyclicBarrier(N_OF_RELEASERS + 1);
+        List<Thread> releasers = new ArrayList<>();
+        for (int i = 0; i < N_OF_RELEASERS; ++i) {
+            Thread th = new Thread(() -> {
+                try {
+                    for (int round = 0; round < N_OF_ROUNDS; ++round) {
+                        start.await();
+                        semaphore.release(1);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            th.start();
+            releasers.add(th);
+        }
+        try {
+            for (int round = 0; round < N_OF_ROUNDS; ++round) {
+                start.await();
+                if (!semaphore.acquire(N_OF_RELEASERS, 1, TimeUnit.SECONDS)) {
+                    fail("released units didn't reach the waiter on round " + round);
+                }
+            }
+        } finally {
+            for (Thread th : releasers) {
+                th.interrupt();
+                th.join();
+            }
+        }
+        assertFalse(semaphore.acquire(1, 0, TimeUnit.MILLISECONDS));
+    }
+
+    // the thread is returned on th[0], so that it can be interrupted
+    private static <T> FutureTask<T> startAndWaitUntilBlocked(Callable<T> callable, Thread[] th) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        th[0] = new Thread(task);
+        th[0].start();
+        waitUntilTimedWaiting(th[0]);
+        return task;
+    }
 }
@@ -0,0 +1,82 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+import pt.isel.pc.demos.li51n.synchronizers.PooledLockFreeStack;
+import pt.isel.pc.examples.utils.TestHelper;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PooledLockFreeStackTests {
+
+    private static final int N_OF_THREADS = 8;
+    private static final Duration TEST_DURATION = Duration.ofSeconds(3);
+
+    @Test
+    public void pop_returns_the_elements_in_reverse_order_and_reuses_the_nodes() {
+        PooledLockFreeStack<Integer> stack = new PooledLockFreeStack<>();
+        assertNull(stack.pop());
+        for (int round = 0; round < 3; ++round) {
+            // more than the first chunk
+            for (int i = 0; i < 1000; ++i) {
+                stack.push(i);
+            }
+            for (int i = 999; i >= 0; --i) {
+                assertEquals(Integer.valueOf(i), stack.pop());
+            }
+            assertNull(stack.pop());
+            assertTrue(stack.isEmpty());
+        }
+    }
+
+    @Test
+    public void popInto_pops_the_top_elements() {
+        PooledLockFreeStack<Integer> stack = new PooledLockFreeStack<>();
+        for (int i = 0; i < 10; ++i) {
+            stack.push(i);
+        }
+        Integer[] destination = new Integer[8];
+        assertEquals(4, stack.popInto(destination, 2, 4));
+        assertEquals(Integer.valueOf(9), destination[2]);
+        assertEquals(Integer.valueOf(6), destination[5]);
+        assertEquals(6, stack.popInto(destination, 0, 8));
+        assertEquals(Integer.valueOf(0), destination[5]);
+        assertEquals(0, stack.popInto(destination, 0, 8));
+    }
+
+    @Test
+    public void no_element_is_lost_or_duplicated_with_concurrent_push_and_pop() throws InterruptedException {
+        PooledLockFreeStack<Long> stack = new PooledLockFreeStack<>();
+        AtomicLong pushedSum = new AtomicLong();
+        AtomicLong poppedSum = new AtomicLong();
+        TestHelper testHelper = new TestHelper(TEST_DURATION);
+        testHelper.createAndStartMultiple(N_OF_THREADS, (ix, isDone) -> {
+            long value = (long) ix << 32;
+            Long[] destination = new Long[4];
+            while (!isDone.get()) {
+                for (int i = 0; i < 4; ++i) {
+                    stack.push(++value);
+                    pushedSum.addAndGet(value);
+                }
+                Long popped = stack.pop();
+                if (popped != null) {
+                    poppedSum.addAndGet(popped);
+                }
+                int count = stack.popInto(destination, 0, destination.length);
+                for (int i = 0; i < count; ++i) {
+                    poppedSum.addAndGet(destination[i]);
+                }
+            }
+        });
+        testHelper.join();
+        Long popped;
+        while ((popped = stack.pop()) != null) {
+            poppedSum.addAndGet(popped);
+        }
+        assertEquals(pushedSum.get(), poppedSum.get());
+    }
+}
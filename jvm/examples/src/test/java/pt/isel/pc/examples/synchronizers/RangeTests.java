@@ -0,0 +1,85 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+import pt.isel.pc.demos.li51n.synchronizers.PackedRange;
+import pt.isel.pc.demos.li51n.synchronizers.Range;
+import pt.isel.pc.demos.li51n.synchronizers.SeqLockRange;
+import pt.isel.pc.examples.utils.TestHelper;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RangeTests {
+
+    private static final int N_OF_THREADS = 4;
+    private static final Duration TEST_DURATION = Duration.ofSeconds(2);
+
+    @Test
+    public void setters_keep_the_invariant() {
+        Range range = new Range(0, 10);
+        SeqLockRange seqLockRange = new SeqLockRange(0, 10);
+        PackedRange packedRange = new PackedRange(0, 10);
+        try {
+            packedRange.setMin(11);
+            fail("should have thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            range.setMin(11);
+            fail("should have thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            seqLockRange.setMax(-1);
+            fail("should have thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        range.setMax(20);
+        range.setMin(15);
+        seqLockRange.set(15, 20);
+        assertEquals(15, range.snapshot().getMin());
+        assertEquals(20, range.snapshot().getMax());
+        assertEquals(15, seqLockRange.getMin());
+        assertEquals(20, seqLockRange.getMax());
+        packedRange.setMax(20);
+        packedRange.setMin(15);
+        assertEquals(15, packedRange.getMin());
+        assertEquals(20, packedRange.getMax());
+        assertTrue(range.contains(17));
+        assertTrue(packedRange.contains(17));
+        assertFalse(seqLockRange.contains(10));
+    }
+
+    @Test
+    public void snapshots_are_consistent_with_concurrent_writes() throws InterruptedException {
+        Range range = new Range(0, 0);
+        SeqLockRange seqLockRange = new SeqLockRange(0, 0);
+        PackedRange packedRange = new PackedRange(0, 0);
+        TestHelper testHelper = new TestHelper(TEST_DURATION);
+        testHelper.createAndStartMultiple(N_OF_THREADS, (ix, isDone) -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (!isDone.get()) {
+                // the writes always keep max == min + 10, so any snapshot must have it too
+                int min = random.nextInt(1000);
+                range.set(min, min + 10);
+                seqLockRange.set(min, min + 10);
+                packedRange.set(min, min + 10);
+                Range.Snapshot snapshot = range.snapshot();
+                assertEquals(snapshot.getMin() + 10, snapshot.getMax());
+                snapshot = seqLockRange.snapshot();
+                assertEquals(snapshot.getMin() + 10, snapshot.getMax());
+                snapshot = packedRange.snapshot();
+                assertEquals(snapshot.getMin() + 10, snapshot.getMax());
+            }
+        });
+        testHelper.join();
+    }
+}
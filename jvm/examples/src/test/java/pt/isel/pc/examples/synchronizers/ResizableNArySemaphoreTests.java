@@ -0,0 +1,88 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResizableNArySemaphoreTests {
+
+    @Test
+    public void growing_the_limit_releases_the_waiting_threads() throws InterruptedException {
+        ResizableNArySemaphore semaphore = new ResizableNArySemaphore(0);
+        final int nOfThreads = 3;
+        CountDownLatch acquired = new CountDownLatch(nOfThreads);
+        for (int i = 0; i < nOfThreads; ++i) {
+            Thread th = new Thread(() -> {
+                try {
+                    if (semaphore.acquire(1, 5, TimeUnit.SECONDS)) {
+                        acquired.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            });
+            th.start();
+        }
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        semaphore.setLimit(nOfThreads);
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        assertEquals(nOfThreads, semaphore.getAcquiredUnits());
+    }
+
+    @Test
+    public void shrinking_the_limit_waits_for_the_acquired_units() throws InterruptedException {
+        ResizableNArySemaphore semaphore = new ResizableNArySemaphore(4);
+        assertTrue(semaphore.acquire(3, 0, TimeUnit.MILLISECONDS));
+        semaphore.setLimit(2);
+        assertEquals(3, semaphore.getAcquiredUnits());
+        assertFalse(semaphore.acquire(1, 0, TimeUnit.MILLISECONDS));
+        semaphore.release(1);
+        assertFalse(semaphore.acquire(1, 0, TimeUnit.MILLISECONDS));
+        semaphore.release(1);
+        assertTrue(semaphore.acquire(1, 0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void never_exceeds_the_limit_while_it_changes() throws InterruptedException {
+        ResizableNArySemaphore semaphore = new ResizableNArySemaphore(4);
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxLimit = new AtomicInteger(4);
+        AtomicInteger violations = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 2000; ++j) {
+                        if (semaphore.acquire(1, 10, TimeUnit.MILLISECONDS)) {
+                            if (inUse.incrementAndGet() > maxLimit.get()) {
+                                violations.incrementAndGet();
+                            }
+                            Thread.yield();
+                            inUse.decrementAndGet();
+                            semaphore.release(1);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    // ignore
+                }
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < 200; ++i) {
+            // the limit is always between 1 and 4
+            semaphore.setLimit(i % 4 + 1);
+            Thread.yield();
+        }
+        for (Thread th : threads) {
+            th.join();
+        }
+        assertEquals(0, violations.get());
+        assertEquals(0, semaphore.getAcquiredUnits());
+    }
+}
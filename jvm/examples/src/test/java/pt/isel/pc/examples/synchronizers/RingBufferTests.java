@@ -0,0 +1,205 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+import pt.isel.pc.demos.li51n.synchronizers.BlockingRingBuffer;
+import pt.isel.pc.demos.li51n.synchronizers.LockFreeRingBuffer;
+import pt.isel.pc.examples.utils.TestHelper;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static pt.isel.pc.examples.utils.TestUtils.expect;
+import static pt.isel.pc.examples.utils.TestUtils.waitUntilTimedWaiting;
+
+public class RingBufferTests {
+
+    private static final int N_OF_PRODUCERS = 4;
+    private static final int N_OF_CONSUMERS = 4;
+    private static final int CAPACITY = 16;
+    private static final Duration TEST_DURATION = Duration.ofSeconds(3);
+
+    @Test
+    public void capacity_is_rounded_up_to_a_power_of_two_and_at_least_two() {
+        assertEquals(2, new LockFreeRingBuffer<Integer>(2).capacity());
+        assertEquals(4, new LockFreeRingBuffer<Integer>(3).capacity());
+        assertEquals(16, new LockFreeRingBuffer<Integer>(16).capacity());
+        expect(IllegalArgumentException.class, () -> new LockFreeRingBuffer<Integer>(1));
+        expect(IllegalArgumentException.class, () -> new LockFreeRingBuffer<Integer>(0));
+        expect(IllegalArgumentException.class, () -> new BlockingRingBuffer<Integer>(1));
+    }
+
+    @Test
+    public void offer_fails_when_full_and_poll_when_empty() {
+        LockFreeRingBuffer<Integer> ring = new LockFreeRingBuffer<>(4);
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+        // a few rounds, so that the slots are reused
+        for (int round = 0; round < 3; ++round) {
+            for (int i = 0; i < 4; ++i) {
+                assertTrue(ring.offer(i));
+            }
+            assertFalse(ring.offer(4));
+            assertTrue(ring.isFull());
+            assertEquals(4, ring.size());
+            for (int i = 0; i < 4; ++i) {
+                assertEquals(Integer.valueOf(i), ring.poll());
+            }
+            assertNull(ring.poll());
+            assertTrue(ring.isEmpty());
+        }
+    }
+
+    /*
+     * Same as the BlockingRingBuffer stress test, but only with offer and poll, which never wait.
+     */
+    @Test
+    public void lock_free_stress_test() throws InterruptedException {
+        LockFreeRingBuffer<Long> ring = new LockFreeRingBuffer<>(CAPACITY);
+        stressTest(ring::offer, ring::poll);
+    }
+
+    @Test
+    public void blocking_stress_test() throws InterruptedException {
+        BlockingRingBuffer<Long> queue = new BlockingRingBuffer<>(CAPACITY);
+        stressTest(
+                element -> queue.enqueue(element, 10, TimeUnit.MILLISECONDS),
+                () -> queue.dequeue(10, TimeUnit.MILLISECONDS).orElse(null));
+    }
+
+    @Test
+    public void blocking_operations_return_in_order_or_timeout() throws InterruptedException {
+        BlockingRingBuffer<Integer> queue = new BlockingRingBuffer<>(2);
+        assertFalse(queue.dequeue(0, TimeUnit.MILLISECONDS).isPresent());
+        assertFalse(queue.dequeue(10, TimeUnit.MILLISECONDS).isPresent());
+        assertTrue(queue.enqueue(1, 0, TimeUnit.MILLISECONDS));
+        assertTrue(queue.enqueue(2, 0, TimeUnit.MILLISECONDS));
+        assertFalse(queue.enqueue(3, 0, TimeUnit.MILLISECONDS));
+        assertFalse(queue.enqueue(3, 10, TimeUnit.MILLISECONDS));
+        assertEquals(Optional.of(1), queue.dequeue(0, TimeUnit.MILLISECONDS));
+        assertTrue(queue.enqueue(3, 0, TimeUnit.MILLISECONDS));
+        assertEquals(Optional.of(2), queue.dequeue(0, TimeUnit.MILLISECONDS));
+        assertEquals(Optional.of(3), queue.dequeue(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void waiting_threads_complete_when_the_other_side_arrives() throws Exception {
+        BlockingRingBuffer<Integer> queue = new BlockingRingBuffer<>(2);
+        FutureTask<Optional<Integer>> receiver = new FutureTask<>(() -> queue.dequeue(10, TimeUnit.SECONDS));
+        Thread th = new Thread(receiver);
+        th.start();
+        waitUntilTimedWaiting(th);
+        assertTrue(queue.enqueue(1, 0, TimeUnit.MILLISECONDS));
+        assertEquals(Optional.of(1), receiver.get());
+
+        assertTrue(queue.enqueue(2, 0, TimeUnit.MILLISECONDS));
+        assertTrue(queue.enqueue(3, 0, TimeUnit.MILLISECONDS));
+        FutureTask<Boolean> sender = new FutureTask<>(() -> queue.enqueue(4, 10, TimeUnit.SECONDS));
+        th = new Thread(sender);
+        th.start();
+        waitUntilTimedWaiting(th);
+        assertEquals(Optional.of(2), queue.dequeue(0, TimeUnit.MILLISECONDS));
+        assertTrue(sender.get());
+        assertEquals(Optional.of(3), queue.dequeue(0, TimeUnit.MILLISECONDS));
+        assertEquals(Optional.of(4), queue.dequeue(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void interrupted_waiting_threads_throw_without_changing_the_queue() throws Exception {
+        BlockingRingBuffer<Integer> queue = new BlockingRingBuffer<>(2);
+        FutureTask<Optional<Integer>> receiver = new FutureTask<>(() -> queue.dequeue(10, TimeUnit.SECONDS));
+        Thread th = new Thread(receiver);
+        th.start();
+        waitUntilTimedWaiting(th);
+        th.interrupt();
+        expectInterruptedException(receiver);
+
+        assertTrue(queue.enqueue(1, 0, TimeUnit.MILLISECONDS));
+        assertTrue(queue.enqueue(2, 0, TimeUnit.MILLISECONDS));
+        FutureTask<Boolean> sender = new FutureTask<>(() -> queue.enqueue(3, 10, TimeUnit.SECONDS));
+        th = new Thread(sender);
+        th.start();
+        waitUntilTimedWaiting(th);
+        th.interrupt();
+        expectInterruptedException(sender);
+
+        // the interrupted receiver didn't take an element and the interrupted sender didn't add one
+        assertEquals(Optional.of(1), queue.dequeue(0, TimeUnit.MILLISECONDS));
+        assertEquals(Optional.of(2), queue.dequeue(0, TimeUnit.MILLISECONDS));
+        assertFalse(queue.dequeue(0, TimeUnit.MILLISECONDS).isPresent());
+    }
+
+    interface Offer {
+        boolean offer(Long element) throws InterruptedException;
+    }
+
+    interface Poll {
+        Long poll() throws InterruptedException;
+    }
+
+    /*
+     * Each element has the producer's index on the high bits and a sequence number on the low bits.
+     * Checks that no element is lost or duplicated, and that each consumer sees the elements of each
+     * producer in order.
+     */
+    private static void stressTest(Offer offer, Poll poll) throws InterruptedException {
+        AtomicLong enqueuedSum = new AtomicLong();
+        AtomicLong dequeuedSum = new AtomicLong();
+        AtomicLong enqueuedCount = new AtomicLong();
+        AtomicLong dequeuedCount = new AtomicLong();
+        TestHelper testHelper = new TestHelper(TEST_DURATION);
+        testHelper.createAndStartMultiple(N_OF_PRODUCERS, (ix, isDone) -> {
+            long sequence = 0;
+            while (!isDone.get()) {
+                long element = ((long) ix << 32) | sequence;
+                if (offer.offer(element)) {
+                    sequence += 1;
+                    enqueuedSum.addAndGet(element);
+                    enqueuedCount.incrementAndGet();
+                }
+            }
+        });
+        testHelper.createAndStartMultiple(N_OF_CONSUMERS, (ix, isDone) -> {
+            long[] lastSequences = new long[N_OF_PRODUCERS];
+            Arrays.fill(lastSequences, -1);
+            while (!isDone.get()) {
+                Long element = poll.poll();
+                if (element != null) {
+                    int producer = (int) (element >>> 32);
+                    long sequence = element & 0xFFFFFFFFL;
+                    assertTrue(sequence > lastSequences[producer]);
+                    lastSequences[producer] = sequence;
+                    dequeuedSum.addAndGet(element);
+                    dequeuedCount.incrementAndGet();
+                }
+            }
+        });
+        testHelper.join();
+        Long element;
+        while ((element = poll.poll()) != null) {
+            dequeuedSum.addAndGet(element);
+            dequeuedCount.incrementAndGet();
+        }
+        assertTrue(enqueuedCount.get() > 0);
+        assertEquals(enqueuedCount.get(), dequeuedCount.get());
+        assertEquals(enqueuedSum.get(), dequeuedSum.get());
+    }
+
+    private static void expectInterruptedException(FutureTask<?> task) throws InterruptedException {
+        try {
+            task.get();
+            fail("must throw InterruptedException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InterruptedException);
+        }
+    }
+}
@@ -5,10 +5,30 @@ import pt.isel.pc.demos.li51n.synchronizers.SimpleThreadPool;
 import pt.isel.pc.examples.utils.TestHelper;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class SimpleThreadPoolTests {
 
@@ -34,13 +54,387 @@ public class SimpleThreadPoolTests {
         });
 
         testHelper.join();
-        // 1. pool.shutdown();
-        // 2. pool.awaitTermination();
-        // Never do this, add a proper synchronization method to the pool!
-        while(pool.getRunningWorkers() != 0) {
-            Thread.sleep(100);
-        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(0, pool.getRunningWorkers());
         assertEquals(0, counter.get());
     }
 
+    @Test
+    public void idle_workers_are_reused_and_end_after_keep_alive() throws InterruptedException {
+        SimpleThreadPool pool = new SimpleThreadPool(1, 4, 200, TimeUnit.MILLISECONDS);
+        CountDownLatch started = new CountDownLatch(4);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 4; ++i) {
+            pool.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        waitUntil(() -> pool.getIdleWorkers() == 4);
+
+        // the new work goes to the idle workers, without creating new ones
+        CountDownLatch done = new CountDownLatch(4);
+        for (int i = 0; i < 4; ++i) {
+            pool.execute(done::countDown);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(4, pool.getRunningWorkers());
+
+        // only the core worker stays after the keep-alive time
+        waitUntil(() -> pool.getRunningWorkers() == 1);
+        Thread.sleep(400);
+        assertEquals(1, pool.getRunningWorkers());
+
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(pool.isTerminated());
+    }
+
+    @Test
+    public void shutdownNow_interrupts_workers_and_returns_the_queued_work() throws InterruptedException {
+        SimpleThreadPool pool = new SimpleThreadPool(0, 2, 1, TimeUnit.MINUTES);
+        CountDownLatch started = new CountDownLatch(2);
+        AtomicInteger interrupted = new AtomicInteger();
+        for (int i = 0; i < 2; ++i) {
+            pool.execute(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(Long.MAX_VALUE);
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                }
+            });
+        }
+        // the queued work must not run, which is checked on the test thread
+        AtomicInteger queuedRuns = new AtomicInteger();
+        for (int i = 0; i < 3; ++i) {
+            pool.execute(queuedRuns::incrementAndGet);
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertFalse(pool.awaitTermination(10, TimeUnit.MILLISECONDS));
+
+        List<Runnable> pending = pool.shutdownNow();
+        assertEquals(3, pending.size());
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, interrupted.get());
+        assertEquals(0, queuedRuns.get());
+        try {
+            pool.execute(() -> { });
+            fail("must reject work after shutdown");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void full_queue_applies_the_rejection_policy() throws InterruptedException {
+        for (SimpleThreadPool.RejectionPolicy policy : SimpleThreadPool.RejectionPolicy.values()) {
+            SimpleThreadPool pool = new SimpleThreadPool(0, 1, 0, TimeUnit.MILLISECONDS, 2, policy);
+            CountDownLatch release = new CountDownLatch(1);
+            List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+            pool.execute(() -> awaitUninterruptibly(release));
+            for (int i = 0; i < 2; ++i) {
+                int ix = i;
+                pool.execute(() -> order.add(ix));
+            }
+            assertEquals(2, pool.getQueueSize());
+
+            switch (policy) {
+                case BLOCK:
+                    assertFalse(pool.execute(() -> order.add(2), 10, TimeUnit.MILLISECONDS));
+                    new Thread(() -> {
+                        sleepUninterruptibly(50);
+                        release.countDown();
+                    }).start();
+                    // waits until the worker takes work from the queue
+                    pool.execute(() -> order.add(2));
+                    break;
+                case REJECT:
+                    try {
+                        pool.execute(() -> order.add(2));
+                        fail("must reject when the queue is full");
+                    } catch (RejectedExecutionException e) {
+                        // expected
+                    }
+                    break;
+                case CALLER_RUNS:
+                    pool.execute(() -> order.add(2));
+                    assertEquals(Collections.singletonList(2), order);
+                    break;
+                case DROP_OLDEST:
+                    pool.execute(() -> order.add(2));
+                    assertEquals(2, pool.getQueueSize());
+                    break;
+            }
+            release.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+            List<Integer> expected;
+            switch (policy) {
+                case REJECT:
+                    expected = Arrays.asList(0, 1);
+                    break;
+                case CALLER_RUNS:
+                    expected = Arrays.asList(2, 0, 1);
+                    break;
+                case DROP_OLDEST:
+                    expected = Arrays.asList(1, 2);
+                    break;
+                default:
+                    expected = Arrays.asList(0, 1, 2);
+            }
+            assertEquals(policy.toString(), expected, order);
+        }
+    }
+
+    @Test
+    public void shutdown_rejects_the_blocked_submitters() throws InterruptedException {
+        SimpleThreadPool pool =
+                new SimpleThreadPool(0, 1, 0, TimeUnit.MILLISECONDS, 0, SimpleThreadPool.RejectionPolicy.BLOCK);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> awaitUninterruptibly(release));
+        AtomicInteger rejected = new AtomicInteger();
+        // the rejected work must not run, which is checked on the test thread
+        AtomicInteger rejectedRuns = new AtomicInteger();
+        TestHelper testHelper = new TestHelper(Duration.ofSeconds(5));
+        testHelper.createAndStart(0, (ix, isDone) -> {
+            try {
+                pool.execute(rejectedRuns::incrementAndGet);
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+            }
+        });
+        waitUntil(() -> pool.getQueueSize() == 1);
+        pool.shutdown();
+        testHelper.join();
+        assertEquals(1, rejected.get());
+        release.countDown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, rejectedRuns.get());
+    }
+
+    @Test
+    public void submit_completes_the_future_and_continuations_run_on_the_pool() throws Exception {
+        SimpleThreadPool pool = new SimpleThreadPool(1, 1, 1, TimeUnit.MINUTES);
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        CompletableFuture<Integer> future = pool.submit(() -> {
+            worker.set(Thread.currentThread());
+            return 21;
+        });
+        // without an explicit executor, the continuation also runs on the pool's only worker
+        CompletableFuture<Thread> continuation = future
+                .thenApplyAsync(x -> 2 * x)
+                .thenComposeAsync(x -> CompletableFuture.completedFuture(Thread.currentThread()), pool);
+        assertEquals(Integer.valueOf(21), future.get(5, TimeUnit.SECONDS));
+        assertSame(worker.get(), continuation.get(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Integer> failed = pool.submit(() -> {
+            throw new IllegalStateException("failed");
+        });
+        try {
+            failed.get(5, TimeUnit.SECONDS);
+            fail("must throw the callable's exception");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void invokeAll_and_invokeAny_respect_the_deadline() throws Exception {
+        SimpleThreadPool pool = new SimpleThreadPool(0, 4, 1, TimeUnit.SECONDS);
+        Callable<Integer> slow = () -> {
+            Thread.sleep(5000);
+            return 0;
+        };
+        Callable<Integer> failing = () -> {
+            throw new IllegalStateException("failed");
+        };
+
+        List<CompletableFuture<Integer>> futures =
+                pool.invokeAll(Arrays.asList(() -> 1, slow, () -> 2), 200, TimeUnit.MILLISECONDS);
+        assertEquals(Integer.valueOf(1), futures.get(0).get());
+        assertTrue(futures.get(1).isCancelled());
+        assertEquals(Integer.valueOf(2), futures.get(2).get());
+
+        assertEquals(Integer.valueOf(3),
+                pool.invokeAny(Arrays.asList(failing, slow, () -> 3), 5, TimeUnit.SECONDS));
+        try {
+            pool.invokeAny(Arrays.asList(failing, failing), 5, TimeUnit.SECONDS);
+            fail("must throw when all fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        try {
+            pool.invokeAny(Collections.singletonList(slow), 100, TimeUnit.MILLISECONDS);
+            fail("must throw on timeout");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        pool.shutdownNow();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void continuations_with_BLOCK_and_a_full_queue_run_on_the_worker() throws Exception {
+        SimpleThreadPool pool =
+                new SimpleThreadPool(1, 1, 1, TimeUnit.MINUTES, 1, SimpleThreadPool.RejectionPolicy.BLOCK);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicReference<Thread> worker = new AtomicReference<>();
+        CompletableFuture<Integer> future = pool.submit(() -> {
+            worker.set(Thread.currentThread());
+            awaitUninterruptibly(release);
+            return 1;
+        });
+        CompletableFuture<Thread> continuation = future.thenApplyAsync(x -> Thread.currentThread());
+        // fills the queue, so the worker completing the future can't queue the continuation
+        CountDownLatch queuedRan = new CountDownLatch(1);
+        pool.execute(queuedRan::countDown);
+        assertEquals(1, pool.getQueueSize());
+        release.countDown();
+        assertSame(worker.get(), continuation.get(5, TimeUnit.SECONDS));
+        assertTrue(queuedRan.await(5, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void invokeAll_and_invokeAny_with_BLOCK_stop_waiting_for_space_on_timeout() throws Exception {
+        SimpleThreadPool pool =
+                new SimpleThreadPool(1, 1, 1, TimeUnit.MINUTES, 0, SimpleThreadPool.RejectionPolicy.BLOCK);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.execute(() -> awaitUninterruptibly(release));
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Integer>> futures =
+                pool.invokeAll(Arrays.asList(() -> 1, () -> 2), 50, TimeUnit.MILLISECONDS);
+        for (CompletableFuture<Integer> future : futures) {
+            assertTrue(future.isCancelled());
+        }
+        try {
+            pool.invokeAny(Collections.singletonList(() -> 3), 50, TimeUnit.MILLISECONDS);
+            fail("must throw on timeout");
+        } catch (TimeoutException e) {
+            // expected
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        release.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void adaptive_pool_adds_workers_while_they_improve_the_throughput() throws InterruptedException {
+        SimpleThreadPool pool = new SimpleThreadPool(0, 16, 1, TimeUnit.SECONDS,
+                64, SimpleThreadPool.RejectionPolicy.BLOCK, Duration.ofMillis(20));
+        assertEquals(1, pool.getWorkerLimit());
+        TestHelper testHelper = new TestHelper(Duration.ofSeconds(2));
+        AtomicInteger maxLimit = new AtomicInteger();
+        testHelper.createAndStart(0, (ix, isDone) -> {
+            while (!isDone.get()) {
+                // blocking work, where the throughput grows with the number of workers
+                pool.execute(() -> sleepUninterruptibly(2));
+                int limit = pool.getWorkerLimit();
+                assertTrue(limit >= 1 && limit <= 16);
+                maxLimit.accumulateAndGet(limit, Math::max);
+            }
+        });
+        testHelper.join();
+        assertTrue("worker limit didn't grow: " + maxLimit.get(), maxLimit.get() >= 4);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(16, new SimpleThreadPool(16).getWorkerLimit());
+    }
+
+    /*
+     * After the limit grows on blocking work, the work changes to runnables that complete at most one every
+     * two milliseconds, on a shared schedule, so the throughput is the same with any number of workers,
+     * while the queue stays full.
+     * The decreases are kept down to max(coreWorkers, 1), and the probed increases are undone.
+     */
+    @Test
+    public void adaptive_pool_removes_workers_that_dont_improve_the_throughput() throws InterruptedException {
+        SimpleThreadPool pool = new SimpleThreadPool(2, 16, 1, TimeUnit.SECONDS,
+                64, SimpleThreadPool.RejectionPolicy.BLOCK, Duration.ofMillis(100));
+        AtomicBoolean isPaced = new AtomicBoolean(false);
+        AtomicBoolean isDone = new AtomicBoolean(false);
+        AtomicBoolean isAtMinimum = new AtomicBoolean(false);
+        AtomicInteger minLimit = new AtomicInteger(Integer.MAX_VALUE);
+        AtomicInteger maxLimitAfterMinimum = new AtomicInteger();
+        AtomicLong nextCompletion = new AtomicLong();
+        Thread submitter = new Thread(() -> {
+            while (!isDone.get()) {
+                if (isPaced.get()) {
+                    pool.execute(() -> {
+                        // the next completion is two milliseconds after the previous one, but never in the past
+                        long completion = nextCompletion.accumulateAndGet(System.nanoTime(),
+                                (next, now) -> Math.max(next + TimeUnit.MILLISECONDS.toNanos(2), now));
+                        long remaining;
+                        while ((remaining = completion - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(remaining);
+                        }
+                    });
+                } else {
+                    pool.execute(() -> sleepUninterruptibly(2));
+                }
+                int limit = pool.getWorkerLimit();
+                minLimit.accumulateAndGet(limit, Math::min);
+                if (isAtMinimum.get()) {
+                    maxLimitAfterMinimum.accumulateAndGet(limit, Math::max);
+                }
+            }
+        });
+        submitter.start();
+        try {
+            waitUntil(() -> pool.getWorkerLimit() >= 5);
+            isPaced.set(true);
+            // decreases are kept while the throughput doesn't drop, down to the minimum
+            waitUntil(() -> pool.getWorkerLimit() == 2);
+            isAtMinimum.set(true);
+            // increases are probed, since there is queued work, but undone
+            waitUntil(() -> pool.getWorkerLimit() > 2);
+            waitUntil(() -> pool.getWorkerLimit() == 2);
+        } finally {
+            isDone.set(true);
+            submitter.join();
+        }
+        assertEquals(2, minLimit.get());
+        // the increases are undone, so it doesn't climb back towards maxWorkers, even with noisy samples
+        assertTrue("worker limit climbed back: " + maxLimitAfterMinimum.get(), maxLimitAfterMinimum.get() < 8);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepUninterruptibly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue("condition not reached", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
 }
@@ -0,0 +1,173 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+import pt.isel.pc.demos.li51n.synchronizers.TwoLockBlockingQueue;
+import pt.isel.pc.examples.utils.TestHelper;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static pt.isel.pc.examples.utils.TestUtils.waitUntilTimedWaiting;
+
+public class TwoLockBlockingQueueTests {
+
+    private static final int N_OF_PRODUCERS = 4;
+    private static final int N_OF_CONSUMERS = 4;
+    private static final int CAPACITY = 16;
+    private static final Duration TEST_DURATION = Duration.ofSeconds(3);
+
+    @Test
+    public void operations_return_in_order_or_timeout() throws InterruptedException {
+        TwoLockBlockingQueue<Integer> queue = new TwoLockBlockingQueue<>(2);
+        assertFalse(queue.dequeue(0, TimeUnit.MILLISECONDS).isPresent());
+        assertFalse(queue.dequeue(10, TimeUnit.MILLISECONDS).isPresent());
+        assertTrue(queue.enqueue(1, 0, TimeUnit.MILLISECONDS));
+        assertTrue(queue.enqueue(2, 0, TimeUnit.MILLISECONDS));
+        assertFalse(queue.enqueue(3, 10, TimeUnit.MILLISECONDS));
+        assertEquals(2, queue.size());
+        assertEquals(Optional.of(1), queue.dequeue(0, TimeUnit.MILLISECONDS));
+        assertTrue(queue.enqueue(3, 0, TimeUnit.MILLISECONDS));
+        assertEquals(Optional.of(2), queue.dequeue(0, TimeUnit.MILLISECONDS));
+        assertEquals(Optional.of(3), queue.dequeue(0, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void interrupt_before_notification_throws_without_consuming_an_element_or_slot() throws Exception {
+        TwoLockBlockingQueue<Integer> queue = new TwoLockBlockingQueue<>(1);
+        Thread[] th = new Thread[1];
+        FutureTask<Optional<Integer>> receiver =
+                startAndWaitUntilBlocked(() -> queue.dequeue(10, TimeUnit.SECONDS), th);
+        th[0].interrupt();
+        expectInterruptedException(receiver);
+        assertTrue(queue.enqueue(1, 0, TimeUnit.MILLISECONDS));
+        assertEquals(1, queue.size());
+
+        FutureTask<Boolean> sender = startAndWaitUntilBlocked(() -> queue.enqueue(2, 10, TimeUnit.SECONDS), th);
+        th[0].interrupt();
+        expectInterruptedException(sender);
+        assertEquals(Optional.of(1), queue.dequeue(0, TimeUnit.MILLISECONDS));
+        assertEquals(0, queue.size());
+        assertTrue(queue.enqueue(3, 0, TimeUnit.MILLISECONDS));
+        assertEquals(Optional.of(3), queue.dequeue(0, TimeUnit.MILLISECONDS));
+    }
+
+    /*
+     * The interrupt is sent right after the notification, usually before the notified thread runs.
+     * Either way, the operation completes and the interrupt status stays set.
+     */
+    @Test
+    public void notified_waiters_complete_with_the_interrupt_status_set() throws Exception {
+        TwoLockBlockingQueue<Integer> queue = new TwoLockBlockingQueue<>(1);
+        Thread[] th = new Thread[1];
+        AtomicBoolean interruptSent = new AtomicBoolean();
+        FutureTask<Optional<Integer>> receiver = startAndWaitUntilBlocked(() -> {
+            Optional<Integer> element = queue.dequeue(10, TimeUnit.SECONDS);
+            return afterInterrupt(interruptSent) ? element : Optional.empty();
+        }, th);
+        assertTrue(queue.enqueue(1, 0, TimeUnit.MILLISECONDS));
+        th[0].interrupt();
+        interruptSent.set(true);
+        assertEquals(Optional.of(1), receiver.get());
+        assertEquals(0, queue.size());
+
+        interruptSent.set(false);
+        assertTrue(queue.enqueue(2, 0, TimeUnit.MILLISECONDS));
+        FutureTask<Boolean> sender = startAndWaitUntilBlocked(() -> {
+            boolean enqueued = queue.enqueue(3, 10, TimeUnit.SECONDS);
+            return enqueued && afterInterrupt(interruptSent);
+        }, th);
+        assertEquals(Optional.of(2), queue.dequeue(0, TimeUnit.MILLISECONDS));
+        th[0].interrupt();
+        interruptSent.set(true);
+        assertTrue(sender.get());
+        assertEquals(Optional.of(3), queue.dequeue(0, TimeUnit.MILLISECONDS));
+    }
+
+    /*
+     * Each element has the producer's index on the high bits and a sequence number on the low bits.
+     * Checks that no element is lost or duplicated, and that each consumer sees the elements of each
+     * producer in order, with the threads blocking often since the capacity is small.
+     */
+    @Test
+    public void stress_test() throws InterruptedException {
+        TwoLockBlockingQueue<Long> queue = new TwoLockBlockingQueue<>(CAPACITY);
+        AtomicLong enqueuedSum = new AtomicLong();
+        AtomicLong dequeuedSum = new AtomicLong();
+        AtomicLong enqueuedCount = new AtomicLong();
+        AtomicLong dequeuedCount = new AtomicLong();
+        TestHelper testHelper = new TestHelper(TEST_DURATION);
+        testHelper.createAndStartMultiple(N_OF_PRODUCERS, (ix, isDone) -> {
+            long sequence = 0;
+            while (!isDone.get()) {
+                long element = ((long) ix << 32) | sequence;
+                if (queue.enqueue(element, 10, TimeUnit.MILLISECONDS)) {
+                    sequence += 1;
+                    enqueuedSum.addAndGet(element);
+                    enqueuedCount.incrementAndGet();
+                }
+            }
+        });
+        testHelper.createAndStartMultiple(N_OF_CONSUMERS, (ix, isDone) -> {
+            long[] lastSequences = new long[N_OF_PRODUCERS];
+            Arrays.fill(lastSequences, -1);
+            while (!isDone.get()) {
+                Optional<Long> element = queue.dequeue(10, TimeUnit.MILLISECONDS);
+                if (element.isPresent()) {
+                    int producer = (int) (element.get() >>> 32);
+                    long sequence = element.get() & 0xFFFFFFFFL;
+                    assertTrue(sequence > lastSequences[producer]);
+                    lastSequences[producer] = sequence;
+                    dequeuedSum.addAndGet(element.get());
+                    dequeuedCount.incrementAndGet();
+                }
+            }
+        });
+        testHelper.join();
+        Optional<Long> element;
+        while ((element = queue.dequeue(0, TimeUnit.MILLISECONDS)).isPresent()) {
+            dequeuedSum.addAndGet(element.get());
+            dequeuedCount.incrementAndGet();
+        }
+        assertTrue(enqueuedCount.get() > 0);
+        assertEquals(enqueuedCount.get(), dequeuedCount.get());
+        assertEquals(enqueuedSum.get(), dequeuedSum.get());
+    }
+
+    // waits, without being interruptible, until the interrupt was sent, and returns the interrupt status
+    private static boolean afterInterrupt(AtomicBoolean interruptSent) {
+        while (!interruptSent.get()) {
+            Thread.yield();
+        }
+        return Thread.currentThread().isInterrupted();
+    }
+
+    // the thread is returned on th[0], so that it can be interrupted
+    private static <T> FutureTask<T> startAndWaitUntilBlocked(Callable<T> callable, Thread[] th) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        th[0] = new Thread(task);
+        th[0].start();
+        waitUntilTimedWaiting(th[0]);
+        return task;
+    }
+
+    private static void expectInterruptedException(FutureTask<?> task) throws InterruptedException {
+        try {
+            task.get();
+            fail("must throw InterruptedException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InterruptedException);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package pt.isel.pc.examples.synchronizers;
+
+import org.junit.Test;
+import pt.isel.pc.demos.li51n.synchronizers.WorkStealingDeque;
+import pt.isel.pc.demos.li51n.synchronizers.WorkStealingThreadPool;
+import pt.isel.pc.examples.utils.TestHelper;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WorkStealingThreadPoolTests {
+
+    private static final int N_OF_THIEVES = 3;
+    private static final int N_OF_WORKERS = 4;
+    private static final Duration TEST_DURATION = Duration.ofSeconds(3);
+
+    @Test
+    public void owner_takes_the_newest_and_thieves_the_oldest() {
+        WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        assertNull(deque.pop());
+        assertNull(deque.steal());
+        // more than the initial size, so that the array grows
+        for (int i = 0; i < 100; ++i) {
+            deque.push(i);
+        }
+        assertEquals(Integer.valueOf(0), deque.steal());
+        assertEquals(Integer.valueOf(99), deque.pop());
+        assertEquals(Integer.valueOf(1), deque.steal());
+        for (int i = 98; i >= 2; --i) {
+            assertEquals(Integer.valueOf(i), deque.pop());
+        }
+        assertNull(deque.pop());
+        assertNull(deque.steal());
+    }
+
+    /*
+     * The owner pushes and pops while the thieves steal, and every element must be taken exactly once.
+     */
+    @Test
+    public void deque_stress_test() throws InterruptedException {
+        WorkStealingDeque<Long> deque = new WorkStealingDeque<>();
+        AtomicLong pushedSum = new AtomicLong();
+        AtomicLong takenSum = new AtomicLong();
+        AtomicLong pushedCount = new AtomicLong();
+        AtomicLong takenCount = new AtomicLong();
+        TestHelper testHelper = new TestHelper(TEST_DURATION);
+        testHelper.createAndStart(0, (ix, isDone) -> {
+            long next = 1;
+            while (!isDone.get()) {
+                // pushes a few and pops one, so that the deque is often almost empty
+                for (int i = 0; i < 3; ++i) {
+                    deque.push(next);
+                    pushedSum.addAndGet(next);
+                    pushedCount.incrementAndGet();
+                    next += 1;
+                }
+                Long value = deque.pop();
+                if (value != null) {
+                    takenSum.addAndGet(value);
+                    takenCount.incrementAndGet();
+                }
+            }
+            Long value;
+            while ((value = deque.pop()) != null) {
+                takenSum.addAndGet(value);
+                takenCount.incrementAndGet();
+            }
+        });
+        testHelper.createAndStartMultiple(N_OF_THIEVES, (ix, isDone) -> {
+            while (!isDone.get()) {
+                Long value = deque.steal();
+                if (value != null) {
+                    takenSum.addAndGet(value);
+                    takenCount.incrementAndGet();
+                }
+            }
+        });
+        testHelper.join();
+        assertEquals(pushedCount.get(), takenCount.get());
+        assertEquals(pushedSum.get(), takenSum.get());
+    }
+
+    @Test
+    public void taken_elements_are_not_kept_by_the_deque() throws InterruptedException {
+        WorkStealingDeque<Object> deque = new WorkStealingDeque<>();
+        List<WeakReference<Object>> taken = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            Object element = new Object();
+            taken.add(new WeakReference<>(element));
+            deque.push(element);
+        }
+        // a steal, a pop of an element the thieves can't reach, and a pop of the last element
+        assertNotNull(deque.steal());
+        assertNotNull(deque.pop());
+        assertNotNull(deque.pop());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (taken.stream().anyMatch(ref -> ref.get() != null)) {
+            if (System.nanoTime() > deadline) {
+                fail("taken elements are still reachable from the deque");
+            }
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    /*
+     * The owner always pushes the same object, so that a thief clearing a reused slot would remove a newer element.
+     */
+    @Test
+    public void deque_stress_test_with_the_same_element() throws InterruptedException {
+        WorkStealingDeque<Object> deque = new WorkStealingDeque<>();
+        Object element = new Object();
+        AtomicLong pushedCount = new AtomicLong();
+        AtomicLong takenCount = new AtomicLong();
+        TestHelper testHelper = new TestHelper(TEST_DURATION);
+        testHelper.createAndStart(0, (ix, isDone) -> {
+            while (!isDone.get()) {
+                // pushes more than it pops, so that the slots are reused while the thieves take
+                for (int i = 0; i < 40; ++i) {
+                    deque.push(element);
+                    pushedCount.incrementAndGet();
+                }
+                for (int i = 0; i < 20 && deque.pop() != null; ++i) {
+                    takenCount.incrementAndGet();
+                }
+            }
+            while (deque.pop() != null) {
+                takenCount.incrementAndGet();
+            }
+        });
+        testHelper.createAndStartMultiple(N_OF_THIEVES, (ix, isDone) -> {
+            while (!isDone.get()) {
+                if (deque.steal() != null) {
+                    takenCount.incrementAndGet();
+                }
+            }
+        });
+        testHelper.join();
+        assertEquals(pushedCount.get(), takenCount.get());
+    }
+
+    @Test
+    public void runs_recursive_work_and_terminates() throws InterruptedException {
+        WorkStealingThreadPool pool = new WorkStealingThreadPool(N_OF_WORKERS);
+        int depth = 14;
+        AtomicInteger leaves = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1 << depth);
+        pool.execute(() -> split(pool, depth, leaves, done));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1 << depth, leaves.get());
+
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(pool.isTerminated());
+        try {
+            pool.execute(() -> { });
+            fail("must reject work after shutdown");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void shutdown_runs_the_accepted_work() throws InterruptedException {
+        WorkStealingThreadPool pool = new WorkStealingThreadPool(N_OF_WORKERS);
+        AtomicInteger counter = new AtomicInteger();
+        TestHelper testHelper = new TestHelper(Duration.ofSeconds(1));
+        testHelper.createAndStartMultiple(N_OF_WORKERS, (ix, isDone) -> {
+            while (!isDone.get()) {
+                counter.incrementAndGet();
+                pool.execute(counter::decrementAndGet);
+            }
+        });
+        testHelper.join();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, counter.get());
+    }
+
+    /*
+     * The submitters keep executing while the pool shuts down, so the idle workers see pending submissions
+     * and must still be woken to end.
+     */
+    @Test
+    public void shutdown_terminates_while_submitters_are_racing() throws InterruptedException {
+        for (int round = 0; round < 50; ++round) {
+            WorkStealingThreadPool pool = new WorkStealingThreadPool(N_OF_WORKERS);
+            AtomicInteger accepted = new AtomicInteger();
+            AtomicInteger ran = new AtomicInteger();
+            Thread[] submitters = new Thread[N_OF_WORKERS];
+            for (int i = 0; i < submitters.length; ++i) {
+                submitters[i] = new Thread(() -> {
+                    try {
+                        while (true) {
+                            pool.execute(ran::incrementAndGet);
+                            accepted.incrementAndGet();
+                        }
+                    } catch (RejectedExecutionException e) {
+                        // expected, after shutdown
+                    }
+                });
+                submitters[i].start();
+            }
+            while (accepted.get() < 100) {
+                Thread.yield();
+            }
+            pool.shutdown();
+            assertTrue("round " + round, pool.awaitTermination(5, TimeUnit.SECONDS));
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+            assertEquals(accepted.get(), ran.get());
+        }
+    }
+
+    private static void split(WorkStealingThreadPool pool, int depth, AtomicInteger leaves, CountDownLatch done) {
+        if (depth == 0) {
+            leaves.incrementAndGet();
+            done.countDown();
+            return;
+        }
+        pool.execute(() -> split(pool, depth - 1, leaves, done));
+        pool.execute(() -> split(pool, depth - 1, leaves, done));
+    }
+}
@@ -33,6 +33,16 @@ public class TestUtils {
         }
     }
 
+    // waits until the thread is blocked on a timed wait, e.g., parked on a synchronizer with a timeout
+    public static void waitUntilTimedWaiting(Thread th) {
+        while (th.getState() != Thread.State.TIMED_WAITING) {
+            if (th.getState() == Thread.State.TERMINATED) {
+                fail("thread ended without blocking");
+            }
+            Thread.yield();
+        }
+    }
+
     public static <E, T> E expect(Class<E> exceptionClass, Callable<T> callable) {
         try {
             callable.call();
@@ -0,0 +1,78 @@
+package pt.isel.pc.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AtomicStateTests {
+
+    private static final int N_OF_THREADS = 4;
+    private static final int N_OF_UPDATES = 100_000;
+
+    @Test
+    public void invalid_updates_are_rejected_and_leave_the_state_unchanged() {
+        AtomicState<int[]> state = new AtomicState<>(new int[]{0, 10}, s -> s[0] <= s[1]);
+        int[] initial = state.get();
+        try {
+            state.updateAndGet(s -> new int[]{11, s[1]});
+            fail("should have thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertSame(initial, state.get());
+        // returning the same state doesn't change it
+        assertSame(initial, state.updateAndGet(s -> s));
+        try {
+            state.compareAndSet(initial, new int[]{11, 10});
+            fail("should have thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertSame(initial, state.get());
+        int[] next = {5, 10};
+        assertTrue(state.compareAndSet(initial, next));
+        assertFalse(state.compareAndSet(initial, new int[]{6, 10}));
+        assertSame(next, state.get());
+
+        AtomicIntPair pair = new AtomicIntPair(0, 10, (first, second) -> first <= second);
+        try {
+            pair.updateAndGet((first, second) -> AtomicIntPair.pack(11, second));
+            fail("should have thrown");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(AtomicIntPair.pack(0, 10), pair.get());
+        assertEquals(-5, AtomicIntPair.first(AtomicIntPair.pack(-5, -7)));
+        assertEquals(-7, AtomicIntPair.second(AtomicIntPair.pack(-5, -7)));
+    }
+
+    @Test
+    public void concurrent_updates_are_not_lost() throws InterruptedException {
+        // both fields are incremented together, so they must always be equal
+        AtomicState<int[]> state = new AtomicState<>(new int[]{0, 0}, s -> s[0] == s[1]);
+        AtomicIntPair pair = new AtomicIntPair(0, 0, (first, second) -> first == second);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < N_OF_THREADS; ++i) {
+            Thread th = new Thread(() -> {
+                for (int j = 0; j < N_OF_UPDATES; ++j) {
+                    state.updateAndGet(s -> new int[]{s[0] + 1, s[1] + 1});
+                    pair.updateAndGet((first, second) -> AtomicIntPair.pack(first + 1, second + 1));
+                }
+            });
+            threads.add(th);
+            th.start();
+        }
+        for (Thread th : threads) {
+            th.join();
+        }
+        assertEquals(N_OF_THREADS * N_OF_UPDATES, state.get()[0]);
+        assertEquals(N_OF_THREADS * N_OF_UPDATES, AtomicIntPair.first(pair.get()));
+    }
+}
@@ -0,0 +1,55 @@
+package pt.isel.pc.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeadlineTests {
+
+    @Test
+    public void remaining_time_decreases_until_the_deadline_expires() throws InterruptedException {
+        Deadline deadline = Deadline.after(50, TimeUnit.MILLISECONDS);
+        long remaining = deadline.remainingNanos();
+        assertTrue(remaining > 0 && remaining <= TimeUnit.MILLISECONDS.toNanos(50));
+        assertFalse(deadline.isExpired());
+        Thread.sleep(60);
+        assertTrue(deadline.isExpired());
+        assertTrue(deadline.remainingNanos() <= 0);
+    }
+
+    @Test
+    public void zero_duration_is_expired_and_large_durations_are_infinite() {
+        assertTrue(Deadline.after(0, TimeUnit.NANOSECONDS).isExpired());
+        Deadline infinite = Deadline.after(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        assertTrue(infinite.isInfinite());
+        assertEquals(Long.MAX_VALUE, infinite.remainingNanos());
+        assertFalse(infinite.isExpired());
+        assertTrue(Deadline.isInfinite(Long.MAX_VALUE, TimeUnit.MILLISECONDS));
+        assertFalse(Deadline.isInfinite(1, TimeUnit.DAYS));
+    }
+
+    @Test
+    public void deadlines_are_ordered_by_expiration() {
+        Deadline first = Deadline.after(1, TimeUnit.SECONDS);
+        Deadline second = Deadline.after(2, TimeUnit.SECONDS);
+        Deadline infinite = Deadline.after(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        assertTrue(first.compareTo(second) < 0);
+        assertTrue(second.compareTo(first) > 0);
+        assertTrue(second.compareTo(infinite) < 0);
+        assertEquals(0, infinite.compareTo(infinite));
+    }
+
+    @Test
+    public void cached_clock_advances_and_expires_deadlines() throws InterruptedException {
+        long start = CachedClock.nanoTime();
+        Deadline deadline = Deadline.afterUsingCachedClock(20, TimeUnit.MILLISECONDS);
+        assertFalse(deadline.isExpired());
+        Thread.sleep(40);
+        assertTrue(CachedClock.nanoTime() > start);
+        assertTrue(deadline.isExpired());
+    }
+}
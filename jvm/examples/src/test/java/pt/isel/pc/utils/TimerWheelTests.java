@@ -0,0 +1,65 @@
+package pt.isel.pc.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTests {
+
+    @Test
+    public void tasks_run_after_their_delay() throws InterruptedException {
+        try (TimerWheel timer = new TimerWheel(1, TimeUnit.MILLISECONDS, 8)) {
+            // longer than a wheel round
+            long delayNanos = TimeUnit.MILLISECONDS.toNanos(20);
+            CountDownLatch latch = new CountDownLatch(1);
+            long start = System.nanoTime();
+            AtomicLong elapsed = new AtomicLong();
+            TimerWheel.Timeout timeout = timer.schedule(() -> {
+                elapsed.set(System.nanoTime() - start);
+                latch.countDown();
+            }, delayNanos, TimeUnit.NANOSECONDS);
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            assertTrue(elapsed.get() >= delayNanos);
+            assertTrue(timeout.isExpired());
+            assertFalse(timeout.cancel());
+        }
+    }
+
+    @Test
+    public void cancelled_tasks_never_run() throws InterruptedException {
+        try (TimerWheel timer = new TimerWheel()) {
+            final int nOfTimeouts = 10_000;
+            AtomicInteger runs = new AtomicInteger();
+            CountDownLatch latch = new CountDownLatch(nOfTimeouts / 2);
+            for (int i = 0; i < nOfTimeouts; ++i) {
+                TimerWheel.Timeout timeout = timer.schedule(() -> {
+                    runs.incrementAndGet();
+                    latch.countDown();
+                }, i % 50, TimeUnit.MILLISECONDS);
+                if (i % 2 == 0) {
+                    assertTrue(timeout.cancel());
+                    assertTrue(timeout.isCancelled());
+                }
+            }
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            assertEquals(nOfTimeouts / 2, runs.get());
+        }
+    }
+
+    @Test
+    public void tasks_with_zero_delay_run_on_the_next_tick() throws InterruptedException {
+        try (TimerWheel timer = new TimerWheel()) {
+            CountDownLatch latch = new CountDownLatch(1);
+            timer.schedule(latch::countDown, 0, TimeUnit.MILLISECONDS);
+            assertTrue(latch.await(100, TimeUnit.MILLISECONDS));
+        }
+    }
+}